@@ -0,0 +1,68 @@
+package karanika.meallab.cache;
+
+import karanika.meallab.model.TermNormalizer;
+
+// Immutable cache key: the API endpoint (e.g. lookup.php), the parameter name (e.g. s or f, since
+// search.php serves both) and the normalized parameter value.
+// "Arrabiata", " arrabiata " and "ARRABIATA" all map to the same key.
+
+public final class CacheKey {
+	
+	private final String endpoint;
+	private final String parameterName;
+	private final String parameter;
+	private final int hash;
+	
+//----------------------------------------Constructor-----------------------------------------
+	
+	public CacheKey(String endpoint, String parameter) {
+		this(endpoint, "", parameter);
+	}
+	
+	public CacheKey(String endpoint, String parameterName, String parameter) {
+		if (endpoint == null || endpoint.trim().isEmpty()) {
+			throw new IllegalArgumentException("Endpoint cannot be null or empty");
+		}
+		this.endpoint = endpoint;
+		this.parameterName = parameterName == null ? "" : parameterName;
+		this.parameter = TermNormalizer.normalizeName(parameter);
+		this.hash = 31 * (31 * endpoint.hashCode() + this.parameterName.hashCode()) + this.parameter.hashCode();
+	}
+	
+//-------------------------------------------Getters--------------------------------------------
+	
+	public String getEndpoint() {
+		return endpoint;
+	}
+	
+	public String getParameterName() {
+		return parameterName;
+	}
+	
+	public String getParameter() {
+		return parameter;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof CacheKey)) {
+			return false;
+		}
+		CacheKey other = (CacheKey) obj;
+		return hash == other.hash && endpoint.equals(other.endpoint)
+				&& parameterName.equals(other.parameterName) && parameter.equals(other.parameter);
+	}
+	
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+	
+	@Override
+	public String toString() {
+		return endpoint + "?" + parameterName + "=" + parameter;
+	}
+}
@@ -0,0 +1,39 @@
+package karanika.meallab.cache;
+
+// Immutable snapshot of the counters of a MealCache
+
+public final class CacheStats {
+	
+	private final long hitCount;
+	private final long missCount;
+	private final long evictionCount;
+	
+	public CacheStats(long hitCount, long missCount, long evictionCount) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+	}
+	
+	public long getHitCount() {                  // Lookups answered from the cache
+		return hitCount;
+	}
+	
+	public long getMissCount() {                 // Lookups that had to go to the network
+		return missCount;
+	}
+	
+	public long getEvictionCount() {             // Entries removed for size or expiry
+		return evictionCount;
+	}
+	
+	// Hit ratio between 0 and 1 (1 when nothing was requested yet)
+	public double getHitRate() {
+		long total = hitCount + missCount;
+		return total == 0 ? 1.0 : (double) hitCount / total;
+	}
+	
+	@Override
+	public String toString() {
+		return "CacheStats{hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + "}";
+	}
+}
@@ -0,0 +1,66 @@
+package karanika.meallab.cache;
+
+/**
+ * Approximate access counter (Count-Min sketch) used for frequency-aware eviction.
+ * Each key is counted in 4 rows of small counters (max 15). All counters are halved
+ * after a sample period, so old popularity fades out and new hot keys can win.
+ * Not thread-safe: the owning cache guards it with its own lock.
+ */
+
+final class FrequencySketch {
+	
+	private static final int ROWS = 4;
+	private static final int MAX_COUNT = 15;
+	private static final int[] SEEDS = {0x97cb3127, 0xb5ad4ecb, 0x2f6b3a0d, 0x7c159e3f};
+	
+	private final int[][] table;
+	private final int mask;
+	private final int samplePeriod;
+	private int additions;
+	
+	FrequencySketch(long expectedEntries) {
+		int width = Integer.highestOneBit((int) Math.max(16, Math.min(expectedEntries, 1 << 20)) * 2 - 1);
+		this.table = new int[ROWS][width];
+		this.mask = width - 1;
+		this.samplePeriod = width * 10;
+	}
+	
+	// Records one access of the key
+	void increment(int hash) {
+		boolean added = false;
+		for (int row = 0; row < ROWS; row++) {
+			int index = indexOf(hash, row);
+			if (table[row][index] < MAX_COUNT) {
+				table[row][index]++;
+				added = true;
+			}
+		}
+		if (added && ++additions >= samplePeriod) {
+			halve();
+		}
+	}
+	
+	// Returns the estimated access count of the key (minimum over all rows)
+	int frequency(int hash) {
+		int frequency = MAX_COUNT;
+		for (int row = 0; row < ROWS; row++) {
+			frequency = Math.min(frequency, table[row][indexOf(hash, row)]);
+		}
+		return frequency;
+	}
+	
+	private int indexOf(int hash, int row) {
+		int h = (hash ^ SEEDS[row]) * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+	
+	// Aging: halves every counter
+	private void halve() {
+		for (int[] row : table) {
+			for (int i = 0; i < row.length; i++) {
+				row[i] >>>= 1;
+			}
+		}
+		additions /= 2;
+	}
+}
@@ -0,0 +1,190 @@
+package karanika.meallab.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import karanika.meallab.model.MealResponse;
+
+/**
+ * In-memory MealCache with per-endpoint time-to-live and a maximum total weight.
+ * The weight of an entry is 1 plus the number of meals it holds, so a large letter listing
+ * costs more room than a single lookup.
+ * Eviction is frequency-aware (TinyLFU): when the cache is full, the least recently used entry
+ * is only evicted if the new entry has been requested at least as often. One-off searches can
+ * therefore not push out popular meals. Admission is decided before anything is removed: a rejected
+ * entry evicts nothing, and a rejected refresh keeps the entry already cached for its key.
+ * Empty results ({"meals":null}) are cached too, but only for a short negative time-to-live:
+ * a repeated search for a term that finds nothing costs no request, and a new meal still shows up soon.
+ */
+
+public class InMemoryMealCache implements MealCache {
+	
+	private final long maximumWeight;
+	private final long defaultTtlNanos;
+	private volatile long negativeTtlNanos = Duration.ofMinutes(1).toNanos();
+	private final Map<String, Long> ttlNanosByEndpoint = new ConcurrentHashMap<>();
+	
+	// Access-ordered: the first entry is always the least recently used one
+	private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+	private final FrequencySketch sketch;
+	
+	private long totalWeight;
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+	
+//----------------------------------------Constructor-----------------------------------------
+	
+	public InMemoryMealCache(long maximumWeight, Duration defaultTimeToLive) {
+		if (maximumWeight <= 0) {
+			throw new IllegalArgumentException("Maximum weight must be positive");
+		}
+		if (defaultTimeToLive == null || defaultTimeToLive.isNegative()) {
+			throw new IllegalArgumentException("Time to live cannot be null or negative");
+		}
+		this.maximumWeight = maximumWeight;
+		this.defaultTtlNanos = defaultTimeToLive.toNanos();
+		this.sketch = new FrequencySketch(maximumWeight);
+	}
+	
+	// Overrides the time-to-live for one endpoint (e.g. longer for lookup.php)
+	public void setTimeToLive(String endpoint, Duration timeToLive) {
+		if (timeToLive == null || timeToLive.isNegative()) {
+			throw new IllegalArgumentException("Time to live cannot be null or negative");
+		}
+		ttlNanosByEndpoint.put(endpoint, timeToLive.toNanos());
+	}
+	
+	// Time-to-live of empty results (default 1 minute, never longer than the endpoint's TTL, 0 = don't cache them)
+	public void setNegativeTimeToLive(Duration timeToLive) {
+		if (timeToLive == null || timeToLive.isNegative()) {
+			throw new IllegalArgumentException("Time to live cannot be null or negative");
+		}
+		this.negativeTtlNanos = timeToLive.toNanos();
+	}
+	
+//-----------------------------------------MealCache------------------------------------------
+	
+	@Override
+	public synchronized MealResponse get(CacheKey key) {
+		sketch.increment(key.hashCode());
+		
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			missCount++;
+			return null;
+		}
+		if (entry.isExpired(System.nanoTime())) {
+			remove(key, entry);
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return entry.response;
+	}
+	
+	@Override
+	public synchronized void put(CacheKey key, MealResponse response) {
+		if (response == null) {
+			return;
+		}
+		long ttl = ttlNanosByEndpoint.getOrDefault(key.getEndpoint(), defaultTtlNanos);
+		if (!response.hasMeals()) {
+			ttl = Math.min(ttl, negativeTtlNanos);
+		}
+		long weight = 1L + response.getMealCount();
+		if (ttl == 0 || weight > maximumWeight) {
+			return;             // Not cacheable
+		}
+		
+		Entry previous = entries.get(key);
+		List<Map.Entry<CacheKey, Entry>> victims = victimsFor(key, weight, previous == null ? 0 : previous.weight);
+		if (victims == null) {
+			return;             // Rejected: the residents are more popular (the previous entry stays)
+		}
+		for (Map.Entry<CacheKey, Entry> victim : victims) {
+			remove(victim.getKey(), victim.getValue());
+		}
+		if (previous != null) {
+			entries.remove(key);
+			totalWeight -= previous.weight;
+		}
+		entries.put(key, new Entry(response, weight, System.nanoTime() + ttl));
+		totalWeight += weight;
+	}
+	
+	@Override
+	public synchronized void invalidateAll() {
+		entries.clear();
+		totalWeight = 0;
+	}
+	
+	@Override
+	public synchronized CacheStats stats() {
+		return new CacheStats(hitCount, missCount, evictionCount);
+	}
+	
+	// Returns the number of entries currently stored
+	public synchronized int size() {
+		return entries.size();
+	}
+	
+//---------------------------------------Private Methods----------------------------------------
+	
+	// The least recently used entries that have to go for the candidate to fit (its own previous entry,
+	// of weight replaced, is freed anyway). Nothing is removed here. Returns null if the candidate
+	// should not be admitted: a live entry among them is more popular, or it cannot fit at all.
+	private List<Map.Entry<CacheKey, Entry>> victimsFor(CacheKey candidate, long weight, long replaced) {
+		List<Map.Entry<CacheKey, Entry>> victims = new ArrayList<>();
+		long excess = totalWeight - replaced + weight - maximumWeight;
+		if (excess <= 0) {
+			return victims;
+		}
+		long now = System.nanoTime();
+		int candidateFrequency = sketch.frequency(candidate.hashCode());
+		
+		for (Map.Entry<CacheKey, Entry> victim : entries.entrySet()) {
+			if (victim.getKey().equals(candidate)) {
+				continue;
+			}
+			boolean expired = victim.getValue().isExpired(now);
+			if (!expired && candidateFrequency < sketch.frequency(victim.getKey().hashCode())) {
+				return null;
+			}
+			victims.add(victim);
+			excess -= victim.getValue().weight;
+			if (excess <= 0) {
+				return victims;
+			}
+		}
+		return null;
+	}
+	
+	private void remove(CacheKey key, Entry entry) {
+		entries.remove(key);
+		totalWeight -= entry.weight;
+		evictionCount++;
+	}
+	
+//-------------------------------------------Entry---------------------------------------------
+	
+	private static final class Entry {
+		final MealResponse response;
+		final long weight;
+		final long expiresAtNanos;
+		
+		Entry(MealResponse response, long weight, long expiresAtNanos) {
+			this.response = response;
+			this.weight = weight;
+			this.expiresAtNanos = expiresAtNanos;
+		}
+		
+		boolean isExpired(long now) {
+			return now - expiresAtNanos >= 0;
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package karanika.meallab.cache;
+
+import karanika.meallab.model.MealResponse;
+
+/**
+ * Pluggable cache for parsed API responses, used by MealLabServices.
+ * Entries are keyed by endpoint and normalized parameter (see CacheKey).
+ * Implementations must be safe to use from several threads at once.
+ */
+
+public interface MealCache {
+	
+	// Returns the cached response or null when it is missing or expired
+	MealResponse get(CacheKey key);
+	
+	// Stores (or replaces) the response for the key
+	void put(CacheKey key, MealResponse response);
+	
+	// Removes every entry
+	void invalidateAll();
+	
+	// Returns a snapshot of the hit/miss/eviction counters
+	CacheStats stats();
+}
@@ -0,0 +1,233 @@
+package karanika.meallab.catalog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import karanika.meallab.exception.MealLabException;
+import karanika.meallab.index.FullTextIndex;
+import karanika.meallab.index.IngredientIndex;
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.model.SymbolTable;
+import karanika.meallab.model.TermNormalizer;
+import karanika.meallab.storage.MealLabInfoCodec;
+import karanika.meallab.storage.StorageFiles;
+
+/**
+ * Local, read-only mirror of TheMealDB catalog (built by MealCatalogCrawler).
+ * Answers the same questions as the API without any network call, and can be saved to and
+ * loaded from a compact gzip-compressed binary file.
+ * Instances are immutable and can be shared between threads.
+ */
+
+public final class MealCatalog {
+	
+	private static final int MAGIC = 0x4D4C4354;               // "MLCT"
+	private static final int VERSION = 2;                        // MealLabInfoCodec
+	
+	private final Map<String, MealLabInfo> mealsById;
+	private final List<MealLabInfo> meals;
+	private final String[] normalizedNames;                      // normalizedNames[i] belongs to meals.get(i)
+	private final IngredientIndex ingredientIndex;
+	private volatile FullTextIndex fullTextIndex;                 // Built on first full-text search
+	
+//----------------------------------------Constructor-----------------------------------------
+	
+	// Meals without an ID are skipped, a repeated ID keeps the first meal
+	public MealCatalog(Collection<MealLabInfo> source) {
+		Map<String, MealLabInfo> byId = new LinkedHashMap<>();
+		for (MealLabInfo meal : source) {
+			if (meal != null && meal.getId() != null) {
+				byId.putIfAbsent(meal.getId(), meal);
+			}
+		}
+		this.mealsById = Collections.unmodifiableMap(byId);
+		this.meals = Collections.unmodifiableList(new ArrayList<>(byId.values()));
+		this.normalizedNames = new String[meals.size()];
+		for (int i = 0; i < meals.size(); i++) {
+			normalizedNames[i] = TermNormalizer.normalizeName(meals.get(i).getName());
+		}
+		this.ingredientIndex = new IngredientIndex(meals);
+	}
+	
+//-------------------------------------------Queries--------------------------------------------
+	
+	public int size() {
+		return meals.size();
+	}
+	
+	public List<MealLabInfo> getMeals() {                    // All meals, read-only
+		return meals;
+	}
+	
+	// Same as lookup.php?i={id}: the meal or null
+	public MealLabInfo findById(String id) {
+		return id == null ? null : mealsById.get(id.trim());
+	}
+	
+	// Same as search.php?s={name}: meals whose name contains the term (case-insensitive)
+	public List<MealLabInfo> searchByName(String term) {
+		String needle = TermNormalizer.normalizeName(term);
+		List<MealLabInfo> result = new ArrayList<>();
+		for (int i = 0; i < normalizedNames.length; i++) {
+			if (normalizedNames[i].contains(needle)) {
+				result.add(meals.get(i));
+			}
+		}
+		return result;
+	}
+	
+	// Same as filter.php?i={ingredient}: meals that use the ingredient ("chicken_breast" = "Chicken Breast")
+	public List<MealLabInfo> searchByIngredient(String ingredient) {
+		return ingredientIndex.findMealsByAnyIngredient(Collections.singleton(ingredient));
+	}
+	
+	// Multi-ingredient query, e.g. all = {chicken, garlic}, none = {lemon}
+	public List<MealLabInfo> findMealsByIngredients(Set<String> all, Set<String> none) {
+		return ingredientIndex.findMealsByIngredients(all, none);
+	}
+	
+	public IngredientIndex getIngredientIndex() {
+		return ingredientIndex;
+	}
+	
+	// Ranked search over name, category, area, ingredients and instructions (no API equivalent)
+	public List<MealLabInfo> searchFullText(String query, int limit) {
+		return getFullTextIndex().search(query, limit);
+	}
+	
+	public FullTextIndex getFullTextIndex() {
+		FullTextIndex index = fullTextIndex;
+		if (index == null) {
+			synchronized (this) {
+				index = fullTextIndex;
+				if (index == null) {
+					index = new FullTextIndex(meals);
+					fullTextIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+	
+	// Same as search.php?f={letter}
+	public List<MealLabInfo> searchByFirstLetter(char letter) {
+		char wanted = Character.toLowerCase(letter);
+		List<MealLabInfo> result = new ArrayList<>();
+		for (int i = 0; i < normalizedNames.length; i++) {
+			if (!normalizedNames[i].isEmpty() && normalizedNames[i].charAt(0) == wanted) {
+				result.add(meals.get(i));
+			}
+		}
+		return result;
+	}
+	
+	// Same as filter.php?c={category} (case-insensitive)
+	public List<MealLabInfo> filterByCategory(String category) {
+		return filterBySymbol(category, true);
+	}
+	
+	// Same as filter.php?a={area} (case-insensitive)
+	public List<MealLabInfo> filterByArea(String area) {
+		return filterBySymbol(area, false);
+	}
+	
+	// Number of meals per category, e.g. {Beef=42, Chicken=35, ...}, counted on SymbolTable IDs
+	public Map<String, Integer> countByCategory() {
+		int[] counts = new int[SymbolTable.size()];
+		for (MealLabInfo meal : meals) {
+			if (meal.getCategoryId() != SymbolTable.NONE) {
+				counts[meal.getCategoryId()]++;
+			}
+		}
+		Map<String, Integer> result = new TreeMap<>();
+		for (int id = 0; id < counts.length; id++) {
+			if (counts[id] > 0) {
+				result.put(SymbolTable.symbol(id), counts[id]);
+			}
+		}
+		return result;
+	}
+	
+	// Same as random.php, null when the catalog is empty
+	public MealLabInfo randomMeal() {
+		if (meals.isEmpty()) {
+			return null;
+		}
+		return meals.get(ThreadLocalRandom.current().nextInt(meals.size()));
+	}
+	
+//---------------------------------------Private Methods----------------------------------------
+	
+	// Every distinct category/area (SymbolTable ID) is compared with the wanted value once,
+	// after that each meal costs an int array read
+	private List<MealLabInfo> filterBySymbol(String value, boolean byCategory) {
+		String wanted = TermNormalizer.normalizeName(value);
+		byte[] matches = new byte[SymbolTable.size()];          // 0 = not checked yet, 1 = match, 2 = no match
+		List<MealLabInfo> result = new ArrayList<>();
+		for (MealLabInfo meal : meals) {
+			int id = byCategory ? meal.getCategoryId() : meal.getAreaId();
+			if (id == SymbolTable.NONE) {
+				continue;
+			}
+			if (matches[id] == 0) {
+				matches[id] = TermNormalizer.normalizeName(SymbolTable.symbol(id)).equals(wanted) ? (byte) 1 : (byte) 2;
+			}
+			if (matches[id] == 1) {
+				result.add(meal);
+			}
+		}
+		return result;
+	}
+	
+//---------------------------------------Save & Load Methods------------------------------------
+	
+	// Writes the catalog to a temporary file first and then renames it, so a crash never leaves half a file
+	public void save(File file) throws IOException {
+		Path target = file.toPath().toAbsolutePath();
+		Path temp = Files.createTempFile(target.getParent(), file.getName(), ".tmp");
+		try {
+			try (OutputStream fileOut = Files.newOutputStream(temp);
+				 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(fileOut)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				MealLabInfoCodec.writeMeals(out, meals);
+			}
+			StorageFiles.moveAtomically(temp, target);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+	
+	public static MealCatalog load(File file) throws IOException {
+		try (InputStream fileIn = Files.newInputStream(file.toPath());
+			 DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(fileIn)))) {
+			if (in.readInt() != MAGIC) {
+				throw new MealLabException("Not a meal catalog file: " + file, 0);
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new MealLabException("Unsupported catalog version " + version, 0);
+			}
+			return new MealCatalog(MealLabInfoCodec.readMeals(in));
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package karanika.meallab.catalog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+
+import karanika.meallab.exception.MealLabException;
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.services.MealLabServices;
+import karanika.meallab.services.RateLimiter;
+
+/**
+ * Builds a MealCatalog by crawling search.php?f={letter} for every letter and digit
+ * (names such as "15-minute chicken & halloumi burgers" start with a digit).
+ * Letters are fetched in parallel (maxConcurrency threads) while a RateLimiter keeps the
+ * total request rate within budget. A failed letter is retried once; if it still fails the
+ * crawl reports it instead of silently returning an incomplete catalog.
+ */
+
+public class MealCatalogCrawler {
+	
+	public static final String ALL_LETTERS = "abcdefghijklmnopqrstuvwxyz0123456789";
+	
+	private final MealLabServices services;
+	private final int maxConcurrency;
+	private final RateLimiter rateLimiter;
+	
+//----------------------------------------Constructor-----------------------------------------
+	
+	public MealCatalogCrawler(MealLabServices services, int maxConcurrency, double requestsPerSecond) {
+		if (services == null) {
+			throw new IllegalArgumentException("Services cannot be null");
+		}
+		if (maxConcurrency < 1) {
+			throw new IllegalArgumentException("Concurrency limit must be at least 1");
+		}
+		this.services = services;
+		this.maxConcurrency = maxConcurrency;
+		this.rateLimiter = new RateLimiter(requestsPerSecond);
+	}
+	
+//----------------------------------------Public Methods----------------------------------------
+	
+	// Crawls a-z and 0-9
+	public MealCatalog crawl() throws IOException {
+		return crawl(ALL_LETTERS);
+	}
+	
+	public MealCatalog crawl(String letters) throws IOException {
+		Map<Character, List<MealLabInfo>> pages = new ConcurrentSkipListMap<>();
+		Map<Character, Future<?>> tasks = new TreeMap<>();
+		
+		ExecutorService pool = Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+			Thread thread = new Thread(runnable, "meal-catalog-crawler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			for (char letter : letters.toCharArray()) {
+				tasks.put(letter, pool.submit(() -> {
+					pages.put(letter, fetchLetter(letter));
+					return null;
+				}));
+			}
+			
+			List<String> failed = new ArrayList<>();
+			for (Map.Entry<Character, Future<?>> task : tasks.entrySet()) {
+				try {
+					task.getValue().get();
+				} catch (ExecutionException e) {
+					failed.add(task.getKey() + " (" + e.getCause().getMessage() + ")");
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Catalog crawl interrupted", e);
+				}
+			}
+			if (!failed.isEmpty()) {
+				throw new MealLabException("Catalog crawl failed for letters: " + String.join(", ", failed), 0);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		
+		List<MealLabInfo> all = new ArrayList<>();
+		pages.values().forEach(all::addAll);
+		return new MealCatalog(all);
+	}
+	
+//---------------------------------------Private Methods----------------------------------------
+	
+	// One letter, with a single retry
+	private List<MealLabInfo> fetchLetter(char letter) throws IOException {
+		try {
+			rateLimiter.acquire();
+			return services.searchMealsByFirstLetter(letter);
+		} catch (IOException firstError) {
+			rateLimiter.acquire();
+			return services.searchMealsByFirstLetter(letter);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package karanika.meallab.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import karanika.meallab.model.MealLabInfo;
+
+/**
+ * Local full-text search over name, category, area, ingredients and instructions, ranked with BM25.
+ * Text is tokenized and stemmed once when the index is built; a query only walks the postings of its
+ * own terms and keeps the best k meals in a bounded min-heap, so nothing is sorted in full.
+ * Matches in the name count more than matches in the instructions (field weights below).
+ * The index is immutable once built and safe to share between threads.
+ */
+
+public final class FullTextIndex {
+	
+	// BM25 parameters (the usual defaults)
+	private static final float K1 = 1.2f;
+	private static final float B = 0.75f;
+	
+	// Field weights: a term in the name counts as 3 occurrences, in category/area/ingredients as 2
+	private static final int NAME_WEIGHT = 3;
+	private static final int TAG_WEIGHT = 2;
+	private static final int INSTRUCTIONS_WEIGHT = 1;
+	
+	private final MealLabInfo[] meals;                       // ordinal -> meal
+	private final Map<String, Postings> postings;            // stemmed term -> (ordinals, weighted frequencies)
+	private final float[] lengthNorm;                        // per meal: K1 * (1 - B + B * length / averageLength)
+	
+	private static final class Postings {
+		int[] ordinals = new int[4];
+		int[] frequencies = new int[4];
+		int size;
+		float idf;
+		
+		void add(int ordinal, int frequency) {
+			if (size > 0 && ordinals[size - 1] == ordinal) {
+				frequencies[size - 1] += frequency;
+				return;
+			}
+			if (size == ordinals.length) {
+				ordinals = Arrays.copyOf(ordinals, size * 2);
+				frequencies = Arrays.copyOf(frequencies, size * 2);
+			}
+			ordinals[size] = ordinal;
+			frequencies[size] = frequency;
+			size++;
+		}
+	}
+	
+//----------------------------------------Constructor-----------------------------------------
+	
+	public FullTextIndex(Collection<MealLabInfo> source) {
+		this.meals = source.toArray(new MealLabInfo[0]);
+		this.postings = new HashMap<>();
+		this.lengthNorm = new float[meals.length];
+		
+		int[] lengths = new int[meals.length];
+		long totalLength = 0;
+		for (int ordinal = 0; ordinal < meals.length; ordinal++) {
+			MealLabInfo meal = meals[ordinal];
+			int length = addField(ordinal, meal.getName(), NAME_WEIGHT)
+					+ addField(ordinal, meal.getCategory(), TAG_WEIGHT)
+					+ addField(ordinal, meal.getArea(), TAG_WEIGHT)
+					+ addField(ordinal, meal.getInstructions(), INSTRUCTIONS_WEIGHT);
+			for (String ingredient : meal.getIngredients()) {
+				length += addField(ordinal, ingredient, TAG_WEIGHT);
+			}
+			lengths[ordinal] = length;
+			totalLength += length;
+		}
+		
+		float averageLength = meals.length == 0 ? 1f : Math.max(1f, (float) totalLength / meals.length);
+		for (int ordinal = 0; ordinal < meals.length; ordinal++) {
+			lengthNorm[ordinal] = K1 * (1 - B + B * lengths[ordinal] / averageLength);
+		}
+		for (Postings list : postings.values()) {
+			// BM25 idf, always positive: ln(1 + (N - n + 0.5) / (n + 0.5))
+			list.idf = (float) Math.log(1 + (meals.length - list.size + 0.5) / (list.size + 0.5));
+		}
+	}
+	
+//-------------------------------------------Queries--------------------------------------------
+	
+	// The best "limit" meals for the query, highest score first (empty when nothing matches)
+	public List<MealLabInfo> search(String query, int limit) {
+		if (limit <= 0 || meals.length == 0) {
+			return Collections.emptyList();
+		}
+		
+		// Accumulate scores only for meals that contain at least one query term
+		float[] scores = new float[meals.length];
+		int[] touched = new int[meals.length];
+		int touchedCount = 0;
+		for (String term : new LinkedHashSet<>(TextAnalyzer.analyze(query))) {
+			Postings list = postings.get(term);
+			if (list == null) {
+				continue;
+			}
+			for (int i = 0; i < list.size; i++) {
+				int ordinal = list.ordinals[i];
+				float tf = list.frequencies[i];
+				if (scores[ordinal] == 0f) {
+					touched[touchedCount++] = ordinal;
+				}
+				scores[ordinal] += list.idf * (tf * (K1 + 1)) / (tf + lengthNorm[ordinal]);
+			}
+		}
+		
+		// Bounded min-heap: the root is the weakest of the current top k (ties: earlier meal wins)
+		PriorityQueue<Integer> heap = new PriorityQueue<>(Math.min(limit, Math.max(1, touchedCount)) + 1,
+				(a, b) -> scores[a] != scores[b] ? Float.compare(scores[a], scores[b]) : Integer.compare(b, a));
+		for (int i = 0; i < touchedCount; i++) {
+			int ordinal = touched[i];
+			if (heap.size() < limit) {
+				heap.add(ordinal);
+			} else if (heap.comparator().compare(ordinal, heap.peek()) > 0) {
+				heap.poll();
+				heap.add(ordinal);
+			}
+		}
+		
+		List<MealLabInfo> result = new ArrayList<>(heap.size());
+		while (!heap.isEmpty()) {
+			result.add(meals[heap.poll()]);
+		}
+		Collections.reverse(result);
+		return result;
+	}
+	
+	public int size() {                                       // Number of indexed meals
+		return meals.length;
+	}
+	
+//---------------------------------------Private Methods----------------------------------------
+	
+	// Adds the field's terms to the postings and returns its weighted length
+	private int addField(int ordinal, String text, int weight) {
+		List<String> tokens = TextAnalyzer.analyze(text);
+		for (String token : tokens) {
+			postings.computeIfAbsent(token, t -> new Postings()).add(ordinal, weight);
+		}
+		return tokens.size() * weight;
+	}
+}
@@ -0,0 +1,123 @@
+package karanika.meallab.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.model.SymbolTable;
+import karanika.meallab.model.TermNormalizer;
+
+/**
+ * Local inverted index: normalized ingredient -> the meals that use it.
+ * Every meal gets a dense ordinal (0..n-1) and each ingredient keeps a BitSet of ordinals,
+ * so "chicken AND garlic AND NOT lemon" is a few word-wise AND / ANDNOT operations
+ * instead of several filter.php calls and a client-side join.
+ * The index is immutable once built and safe to share between threads.
+ */
+
+public final class IngredientIndex {
+	
+	private static final BitSet EMPTY = new BitSet(0);
+	
+	private final MealLabInfo[] meals;                       // ordinal -> meal
+	private final Map<String, BitSet> postings;              // ingredient -> ordinals
+	
+//----------------------------------------Constructor-----------------------------------------
+	
+	public IngredientIndex(Collection<MealLabInfo> source) {
+		this.meals = source.toArray(new MealLabInfo[0]);
+		Map<String, BitSet> map = new HashMap<>();
+		// Each distinct ingredient (SymbolTable ID) is normalized once; "Garlic" in the 500th meal is an array read
+		BitSet[] bySymbol = new BitSet[SymbolTable.size()];
+		for (int ordinal = 0; ordinal < meals.length; ordinal++) {
+			MealLabInfo meal = meals[ordinal];
+			for (int i = 0, count = meal.getIngredientsCount(); i < count; i++) {
+				int symbol = meal.ingredientIdAt(i);
+				if (symbol >= bySymbol.length) {
+					bySymbol = Arrays.copyOf(bySymbol, SymbolTable.size());      // Interned while building
+				}
+				BitSet bits = bySymbol[symbol];
+				if (bits == null) {
+					String key = TermNormalizer.normalizeIngredient(SymbolTable.symbol(symbol));
+					if (key.isEmpty()) {
+						continue;
+					}
+					bits = map.computeIfAbsent(key, k -> new BitSet(meals.length));
+					bySymbol[symbol] = bits;
+				}
+				bits.set(ordinal);
+			}
+		}
+		this.postings = Collections.unmodifiableMap(map);
+	}
+	
+//-------------------------------------------Queries--------------------------------------------
+	
+	// Meals that contain every ingredient of "all" and none of "none" (either set may be empty)
+	public List<MealLabInfo> findMealsByIngredients(Set<String> all, Set<String> none) {
+		BitSet result = new BitSet(meals.length);
+		result.set(0, meals.length);
+		
+		if (all != null) {
+			for (String ingredient : all) {
+				result.and(postingsOf(ingredient));
+				if (result.isEmpty()) {
+					return Collections.emptyList();      // Nothing can match any more
+				}
+			}
+		}
+		if (none != null) {
+			for (String ingredient : none) {
+				result.andNot(postingsOf(ingredient));
+			}
+		}
+		return toMeals(result);
+	}
+	
+	// Meals that contain at least one of the ingredients (OR)
+	public List<MealLabInfo> findMealsByAnyIngredient(Set<String> any) {
+		BitSet result = new BitSet(meals.length);
+		if (any != null) {
+			for (String ingredient : any) {
+				result.or(postingsOf(ingredient));
+			}
+		}
+		return toMeals(result);
+	}
+	
+	// Number of meals that use the ingredient
+	public int countMealsWith(String ingredient) {
+		return postingsOf(ingredient).cardinality();
+	}
+	
+	// All known ingredients (normalized)
+	public Set<String> getIngredients() {
+		return postings.keySet();
+	}
+	
+	public int size() {                                       // Number of indexed meals
+		return meals.length;
+	}
+	
+//---------------------------------------Private Methods----------------------------------------
+	
+	private BitSet postingsOf(String ingredient) {
+		BitSet bits = postings.get(TermNormalizer.normalizeIngredient(ingredient));
+		return bits == null ? EMPTY : bits;
+	}
+	
+	private List<MealLabInfo> toMeals(BitSet ordinals) {
+		List<MealLabInfo> result = new ArrayList<>(ordinals.cardinality());
+		for (int i = ordinals.nextSetBit(0); i >= 0; i = ordinals.nextSetBit(i + 1)) {
+			result.add(meals[i]);
+		}
+		return result;
+	}
+}
@@ -0,0 +1,62 @@
+package karanika.meallab.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Splits text into lower-case word tokens, drops stop words and applies a light English stemmer.
+// Used at index time and on queries, so "Tomatoes" in a recipe matches a search for "tomato".
+
+final class TextAnalyzer {
+	
+	private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+			"a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "into", "is", "it",
+			"of", "on", "or", "the", "then", "to", "until", "with"));
+	
+	private TextAnalyzer() {
+	}
+	
+	static List<String> analyze(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null) {
+			return tokens;
+		}
+		StringBuilder word = new StringBuilder();
+		for (int i = 0; i <= text.length(); i++) {
+			char c = i < text.length() ? text.charAt(i) : ' ';
+			if (Character.isLetterOrDigit(c)) {
+				word.append(Character.toLowerCase(c));
+			} else if (word.length() > 0) {
+				String token = word.toString();
+				word.setLength(0);
+				if (!STOP_WORDS.contains(token)) {
+					tokens.add(stem(token));
+				}
+			}
+		}
+		return tokens;
+	}
+	
+	// Light suffix stripping (plurals, -ing, -ed); keeps at least three letters of the stem
+	static String stem(String token) {
+		int length = token.length();
+		if (length > 4 && token.endsWith("ies")) {
+			return token.substring(0, length - 3) + "y";               // berries -> berry
+		}
+		if (length > 4 && (token.endsWith("oes") || token.endsWith("ches") || token.endsWith("shes") || token.endsWith("sses"))) {
+			return token.substring(0, length - 2);                     // tomatoes -> tomato, peaches -> peach
+		}
+		if (length > 3 && token.endsWith("s") && !token.endsWith("ss") && !token.endsWith("us")) {
+			return token.substring(0, length - 1);                     // onions -> onion
+		}
+		if (length > 5 && token.endsWith("ing")) {
+			return token.substring(0, length - 3);                     // boiling -> boil
+		}
+		if (length > 4 && token.endsWith("ed")) {
+			return token.substring(0, length - 2);                     // boiled -> boil
+		}
+		return token;
+	}
+}
@@ -0,0 +1,312 @@
+package karanika.meallab.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.model.TermNormalizer;
+
+/**
+ * Autocomplete over known meal and ingredient names: a compact trie (sorted char arrays per node)
+ * walked with a Levenshtein row per node, so "arrabiatta" still finds "Spicy Arrabiata Penne"
+ * and "chicken_brest" finds "Chicken Breast" without any request to the API.
+ * Names are also reachable from the start of every later word ("penne" -> "Spicy Arrabiata Penne"),
+ * such a match counts as one extra edit.
+ * Ranking: fewer edits, then the more often seen names, then shorter names, then the earlier learned ones.
+ * Every node keeps the best of these values below it, so only the best "limit" completions are collected
+ * instead of the whole subtree.
+ * Fed by MealLabServices (Builder.typeahead) and its ingredient list; all methods are thread-safe.
+ */
+
+public final class TypeaheadIndex {
+
+	private static final char[] NO_LABELS = new char[0];
+	private static final Node[] NO_CHILDREN = new Node[0];
+
+	// Best possible match first: fewer edits, heavier, shorter, then learned earlier
+	private static final Comparator<Match> RANKING = (a, b) -> {
+		if (a.distance != b.distance) {
+			return Integer.compare(a.distance, b.distance);
+		}
+		return compare(a.entry.weight, a.entry.key.length(), a.entry.sequence,
+				b.entry.weight, b.entry.key.length(), b.entry.sequence);
+	};
+
+	// Most promising subtree first (the same order as the bound in TopMatches.cannotImprove)
+	private static final Comparator<Node> MOST_PROMISING = (a, b) ->
+			compare(a.maxWeight, a.minLength, a.minSequence, b.maxWeight, b.minLength, b.minSequence);
+
+	private final Node root = new Node();
+	private final Map<String, Entry> entries = new HashMap<>();     // normalized name -> entry
+	private int nextSequence;
+
+	private static final class Node {
+		char[] labels = NO_LABELS;                       // sorted, labels[i] leads to children[i]
+		Node[] children = NO_CHILDREN;
+		Entry[] terminals;                               // names whose key ends here (null = none)
+		boolean[] fromStart;                             // fromStart[i]: the key is the whole name of terminals[i]
+		int maxWeight;                                   // Best values of any name in this subtree (for pruning)
+		int minLength = Integer.MAX_VALUE;
+		int minSequence = Integer.MAX_VALUE;
+
+		Node child(char c) {
+			int i = Arrays.binarySearch(labels, c);
+			return i < 0 ? null : children[i];
+		}
+
+		Node childOrCreate(char c) {
+			int i = Arrays.binarySearch(labels, c);
+			if (i >= 0) {
+				return children[i];
+			}
+			int at = -i - 1;
+			Node node = new Node();
+			char[] grownLabels = new char[labels.length + 1];
+			System.arraycopy(labels, 0, grownLabels, 0, at);
+			grownLabels[at] = c;
+			System.arraycopy(labels, at, grownLabels, at + 1, labels.length - at);
+			Node[] grownChildren = new Node[children.length + 1];
+			System.arraycopy(children, 0, grownChildren, 0, at);
+			grownChildren[at] = node;
+			System.arraycopy(children, at, grownChildren, at + 1, children.length - at);
+			labels = grownLabels;
+			children = grownChildren;
+			return node;
+		}
+	}
+
+	private static final class Entry {
+		final String key;                                // Normalized, e.g. "chicken breast"
+		final String display;                            // As first seen, e.g. "Chicken Breast"
+		final int sequence;                              // Order in which the names were learned
+		int weight;
+
+		Entry(String key, String display, int sequence) {
+			this.key = key;
+			this.display = display;
+			this.sequence = sequence;
+		}
+	}
+
+	private static final class Match {
+		final Entry entry;
+		int distance;
+
+		Match(Entry entry, int distance) {
+			this.entry = entry;
+			this.distance = distance;
+		}
+	}
+
+	// The best "limit" matches seen so far, one per name
+	private static final class TopMatches {
+		private final int limit;
+		private final Map<Entry, Match> byEntry = new HashMap<>();
+		private final TreeSet<Match> ranked = new TreeSet<>(RANKING);
+
+		TopMatches(int limit) {
+			this.limit = limit;
+		}
+
+		void offer(Entry entry, int distance) {
+			Match match = byEntry.get(entry);
+			if (match != null) {
+				if (distance < match.distance) {
+					ranked.remove(match);
+					match.distance = distance;
+					ranked.add(match);
+				}
+				return;
+			}
+			match = new Match(entry, distance);
+			if (ranked.size() < limit) {
+				ranked.add(match);
+				byEntry.put(entry, match);
+			} else if (RANKING.compare(match, ranked.last()) < 0) {
+				byEntry.remove(ranked.pollLast().entry);
+				ranked.add(match);
+				byEntry.put(entry, match);
+			}
+		}
+
+		// True when no name below the node can beat the current last place
+		boolean cannotImprove(int distance, Node node) {
+			if (ranked.size() < limit) {
+				return false;
+			}
+			Match last = ranked.last();
+			if (last.distance != distance) {
+				return last.distance < distance;
+			}
+			return compare(last.entry.weight, last.entry.key.length(), last.entry.sequence,
+					node.maxWeight, node.minLength, node.minSequence) < 0;
+		}
+
+		List<String> displays() {
+			List<String> result = new ArrayList<>(ranked.size());
+			for (Match match : ranked) {
+				result.add(match.entry.display);
+			}
+			return result;
+		}
+	}
+
+//-------------------------------------------Feeding--------------------------------------------
+
+	// Adds a name (or raises its weight when it is already known)
+	public synchronized void add(String name, int weight) {
+		String key = TermNormalizer.normalizeIngredient(name);
+		if (key.isEmpty()) {
+			return;
+		}
+		Entry entry = entries.get(key);
+		boolean isNew = entry == null;
+		if (isNew) {
+			entry = new Entry(key, name.trim(), nextSequence++);
+			entries.put(key, entry);
+		}
+		entry.weight += weight;
+
+		// The whole name and every later word is a key
+		insertKey(key, entry, isNew, true);
+		for (int i = key.indexOf(' '); i >= 0; i = key.indexOf(' ', i + 1)) {
+			insertKey(key.substring(i + 1), entry, isNew, false);
+		}
+	}
+
+	// Meal names and their ingredients, e.g. from a search result
+	public void addMeals(Collection<MealLabInfo> meals) {
+		for (MealLabInfo meal : meals) {
+			add(meal.getName(), 1);
+			for (String ingredient : meal.getIngredients()) {
+				add(ingredient, 1);
+			}
+		}
+	}
+
+	public synchronized int size() {                          // Number of known names
+		return entries.size();
+	}
+
+//-------------------------------------------Lookup---------------------------------------------
+
+	// Up to "limit" known names that complete what the user typed, tolerating a few typos
+	// (none for 1-3 letters, one for 4-6 letters, two for longer input)
+	public synchronized List<String> suggest(String typed, int limit) {
+		String query = TermNormalizer.normalizeIngredient(typed);
+		if (query.isEmpty() || limit <= 0) {
+			return new ArrayList<>();
+		}
+		int maxEdits = query.length() <= 3 ? 0 : query.length() <= 6 ? 1 : 2;
+
+		char[] q = query.toCharArray();
+		int[] firstRow = new int[q.length + 1];
+		for (int j = 0; j <= q.length; j++) {
+			firstRow[j] = j;
+		}
+		TopMatches top = new TopMatches(limit);
+		search(root, q, firstRow, Integer.MAX_VALUE, maxEdits, top);
+		return top.displays();
+	}
+
+//---------------------------------------Private Methods----------------------------------------
+
+	// Weight descending, then length and sequence ascending
+	private static int compare(int weightA, int lengthA, int sequenceA, int weightB, int lengthB, int sequenceB) {
+		if (weightA != weightB) {
+			return Integer.compare(weightB, weightA);
+		}
+		if (lengthA != lengthB) {
+			return Integer.compare(lengthA, lengthB);
+		}
+		return Integer.compare(sequenceA, sequenceB);
+	}
+
+	// Walks (and on the first call creates) the path of a key and updates the subtree bounds along it
+	private void insertKey(String key, Entry entry, boolean isNew, boolean fromStart) {
+		Node node = root;
+		for (int i = 0; i <= key.length(); i++) {
+			if (i > 0) {
+				node = isNew ? node.childOrCreate(key.charAt(i - 1)) : node.child(key.charAt(i - 1));
+			}
+			node.maxWeight = Math.max(node.maxWeight, entry.weight);
+			node.minLength = Math.min(node.minLength, entry.key.length());
+			node.minSequence = Math.min(node.minSequence, entry.sequence);
+		}
+		if (!isNew) {
+			return;
+		}
+		if (node.terminals == null) {
+			node.terminals = new Entry[] { entry };
+			node.fromStart = new boolean[] { fromStart };
+		} else {
+			int count = node.terminals.length;
+			node.terminals = Arrays.copyOf(node.terminals, count + 1);
+			node.fromStart = Arrays.copyOf(node.fromStart, count + 1);
+			node.terminals[count] = entry;
+			node.fromStart[count] = fromStart;
+		}
+	}
+
+	// Depth-first walk with one Levenshtein row per node. "best" is the smallest distance between the query
+	// and any prefix on the path so far: once it is within maxEdits, everything below is a completion.
+	private void search(Node node, char[] q, int[] previousRow, int best, int maxEdits, TopMatches top) {
+		if (best <= maxEdits) {
+			record(node, best, top);
+		}
+		for (int c = 0; c < node.labels.length; c++) {
+			char label = node.labels[c];
+			int[] row = new int[q.length + 1];
+			row[0] = previousRow[0] + 1;
+			int rowMin = row[0];
+			for (int j = 1; j <= q.length; j++) {
+				int cost = q[j - 1] == label ? 0 : 1;
+				row[j] = Math.min(Math.min(row[j - 1] + 1, previousRow[j] + 1), previousRow[j - 1] + cost);
+				rowMin = Math.min(rowMin, row[j]);
+			}
+			int childBest = Math.min(best, row[q.length]);
+			if (top.cannotImprove(Math.min(childBest, rowMin), node.children[c])) {
+				continue;                                          // Nothing below can make the top list
+			}
+
+			if (rowMin <= maxEdits) {
+				search(node.children[c], q, row, childBest, maxEdits, top);
+			} else if (childBest <= maxEdits) {
+				collect(node.children[c], childBest, top);        // The distance can't get better below
+			}
+		}
+	}
+
+	// Completions of a subtree, most promising nodes first, until nothing left can make the top list
+	private void collect(Node start, int distance, TopMatches top) {
+		PriorityQueue<Node> queue = new PriorityQueue<>(MOST_PROMISING);
+		queue.add(start);
+		while (!queue.isEmpty()) {
+			Node node = queue.poll();
+			if (top.cannotImprove(distance, node)) {
+				return;
+			}
+			record(node, distance, top);
+			for (Node child : node.children) {
+				queue.add(child);
+			}
+		}
+	}
+
+	private void record(Node node, int distance, TopMatches top) {
+		if (node.terminals == null) {
+			return;
+		}
+		for (int i = 0; i < node.terminals.length; i++) {
+			// A match from the middle of a name counts as one more edit
+			top.offer(node.terminals[i], node.fromStart[i] ? distance : distance + 1);
+		}
+	}
+}
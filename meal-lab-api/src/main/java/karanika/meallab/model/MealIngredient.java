@@ -0,0 +1,37 @@
+package karanika.meallab.model;
+
+// One ingredient of a meal together with its measure (MealLabInfo.getIngredientPairs).
+// The measure is "" when the API gives none.
+
+public final class MealIngredient {
+
+	private final String name;                  // e.g. "Olive Oil"
+	private final String measure;               // e.g. "2 tbs", or ""
+
+//----------------------------------------Constructor-----------------------------------------
+
+	public MealIngredient(String name, String measure) {
+		this.name = name;
+		this.measure = measure == null ? "" : measure;
+	}
+
+//-------------------------------------------Getters--------------------------------------------
+
+	public String getName() {
+		return name;
+	}
+
+	public String getMeasure() {
+		return measure;
+	}
+
+	public boolean hasMeasure() {
+		return !measure.isEmpty();
+	}
+
+	// Same line format as MealLabInfo.getFormattedIngredients: "2 tbs Olive Oil"
+	@Override
+	public String toString() {
+		return hasMeasure() ? measure + " " + name : name;
+	}
+}
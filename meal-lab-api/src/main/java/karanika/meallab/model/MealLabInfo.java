@@ -1,34 +1,109 @@
 package karanika.meallab.model;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.RandomAccess;
 
 import com.fasterxml.jackson.annotation.JsonAnySetter;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 
 
 // This Class is used by Jackson for mapping JSON responses from TheMealDB API to Java Objects.
 // Core fields are immutable (final) and set via constructor.
-// Ingredient and measure lists are mutable and populated via @JsonAnySetter.
+// Ingredients and measures are frozen once deserialization finishes: after that they never change,
+// so one instance can be cached and read from any thread. The accessors return read-only views
+// over the stored arrays (no copy per call), or single entries via ingredientAt / measureAt.
+// Jackson uses the faster MealLabInfoDeserializer; the @JsonCreator/@JsonAnySetter mapping
+// below describes the same fields and stays as the reflective fallback (frozen on first read).
+// Category, area and ingredient names repeat across thousands of meals, so they are stored as SymbolTable
+// IDs (int fields, an int[] for the ingredients); the String getters return the shared instances.
 
  @JsonIgnoreProperties (ignoreUnknown = true)
+ @JsonDeserialize (using = MealLabInfoDeserializer.class)
 public class MealLabInfo {
 //-------------------------------- Immutable core fields.---------------------------------
 	 
 	private final String id;                     // Meal unique identifier from API
 	private final String name;                  // Meal name
-	private final String category;              // Meal category (e.g. Vegetarian)
+	private final int categoryId;               // Meal category (e.g. Vegetarian), as a SymbolTable ID
 	private final String instructions;          // Step-by-step cooking instructions
-	private final String area;                  // Geographic origin (e.g. Italian, Chinese)
+	private final int areaId;                   // Geographic origin (e.g. Italian, Chinese), as a SymbolTable ID
 	private final String thumbnail;            // URL of the meal thumbnail image
 
-//---------------------------Mutable Ingredients and measure fields.----------------------
+//---------------------------Ingredients and measure fields (frozen).----------------------
 	
-	private final List<String> ingredients;      // populated from strIngredients1-20 via @JsonAnySetter
-	private final List<String> measures;         // populated from strMeasures1-20 via @JsonAnySetter
+	private volatile Ingredients frozen;          // null only while @JsonAnySetter is still filling the slots
+	private String[] ingredientSlots;            // strIngredient1-20 by slot, until frozen (guarded by this)
+	private String[] measureSlots;               // strMeasure1-20 by slot, until frozen (guarded by this)
+	
+	// Parallel arrays (measures[i] belongs to ids[i]) and the read-only views over them, never changed
+	private static final class Ingredients {
+		final int[] ids;                                 // Ingredient names as SymbolTable IDs
+		final String[] measures;
+		final List<String> nameView;
+		final List<String> measureView;
+		final List<MealIngredient> pairView;
+		
+		Ingredients(String[] names, String[] measures) {
+			this.ids = new int[names.length];
+			for (int i = 0; i < names.length; i++) {
+				ids[i] = SymbolTable.intern(names[i]);
+			}
+			this.measures = measures;
+			this.nameView = new NameView(ids);
+			this.measureView = Collections.unmodifiableList(Arrays.asList(measures));
+			this.pairView = new PairView(ids, measures);
+		}
+	}
+	
+	// Ingredient names looked up on access (the shared instances, no copy)
+	private static final class NameView extends AbstractList<String> implements RandomAccess {
+		private final int[] ids;
+		
+		NameView(int[] ids) {
+			this.ids = ids;
+		}
+		
+		@Override
+		public String get(int index) {
+			return SymbolTable.symbol(ids[index]);
+		}
+		
+		@Override
+		public int size() {
+			return ids.length;
+		}
+	}
+	
+	// Ingredient/measure pairs created on access, so nothing extra is stored per meal
+	private static final class PairView extends AbstractList<MealIngredient> implements RandomAccess {
+		private final int[] ids;
+		private final String[] measures;
+		
+		PairView(int[] ids, String[] measures) {
+			this.ids = ids;
+			this.measures = measures;
+		}
+		
+		@Override
+		public MealIngredient get(int index) {
+			return new MealIngredient(SymbolTable.symbol(ids[index]), measures[index]);
+		}
+		
+		@Override
+		public int size() {
+			return ids.length;
+		}
+	}
+	
+	private static final Ingredients NO_INGREDIENTS = new Ingredients(new String[0], new String[0]);
 	
 //------------------------------------Constructor------------------------------------------	
 	
@@ -43,33 +118,68 @@ public class MealLabInfo {
 		
 	     this.id = id;
 	     this.name = name;
-	     this.category = category;
+	     this.categoryId = SymbolTable.intern(category);
 	     this.instructions = instructions;
-	     this.area = area;
+	     this.areaId = SymbolTable.intern(area);
 	     this.thumbnail = thumbnail;
 	     
-	     // Initialize empty lists for dynamic population
-	     this.ingredients = new ArrayList<>();
-	     this.measures = new ArrayList<>();
+	     // Open for setDynamicProperty until the first read or freeze()
+	     this.ingredientSlots = new String[MealLabInfoDeserializer.MAX_SLOTS];
+	     this.measureSlots = new String[MealLabInfoDeserializer.MAX_SLOTS];
+	    }
+	
+	// Full constructor (used by MealLabInfoDeserializer and the offline catalog):
+	// parallel arrays, measures[i] belongs to ingredients[i]. The meal is frozen right away.
+	public MealLabInfo(String id, String name, String category, String instructions, String area, String thumbnail,
+			    String[] ingredients, String[] measures) {
+		
+		 this.id = id;
+		 this.name = name;
+		 this.categoryId = SymbolTable.intern(category);
+		 this.instructions = instructions;
+		 this.areaId = SymbolTable.intern(area);
+		 this.thumbnail = thumbnail;
+		 
+		 // Own copies (names as IDs), so the caller's arrays can't change a frozen meal; a missing measure becomes ""
+		 String[] measureCopy = new String[ingredients.length];
+		 for (int i = 0; i < measureCopy.length; i++) {
+			 String measure = i < measures.length ? measures[i] : null;
+			 measureCopy[i] = measure == null ? "" : measure;
+		 }
+		 this.frozen = ingredients.length == 0 ? NO_INGREDIENTS : new Ingredients(ingredients, measureCopy);
 	    }
 //---------------------------------Dynamic Property Handler------------------------------------
 	
 	
+	// strIngredientN / strMeasureN go to slot N, so each ingredient keeps the measure of its own slot.
+	// Only allowed before the meal is frozen.
 	@JsonAnySetter
-	public void setDynamicProperty(String key, String value) {
-		// Handles ingredients fields (strIngredient1 - strIngredient20)
-		if(key != null && key.startsWith("strIngredient")) {
-			if(value != null && !value.trim().isEmpty()) {
-				ingredients.add(value.trim());
-			}
+	public synchronized void setDynamicProperty(String key, String value) {
+		if (key == null) {
+			return;
 		}
-		// Handles measure fields (strMeasure1 - strMeasure20)
-		else if(key != null && key.startsWith("strMeasure")) {
-			if(value != null && !value.trim().isEmpty()) {
-				measures.add(value.trim());
-			}
+		int slot = MealLabInfoDeserializer.slotOf(key, "strIngredient");
+		boolean isIngredient = slot >= 0;
+		if (!isIngredient) {
+			slot = MealLabInfoDeserializer.slotOf(key, "strMeasure");
 		}
-		
+		if (slot < 0) {
+			return;                                       // Any other key (strTags, strYoutube, ...)
+		}
+		if (frozen != null) {
+			throw new IllegalStateException("Meal " + id + " is frozen, its ingredients can no longer change");
+		}
+		(isIngredient ? ingredientSlots : measureSlots)[slot] = value;
+	}
+	
+	// Fixes the ingredients and measures; later setDynamicProperty calls fail. Called by the first read.
+	public void freeze() {
+		ingredients();
+	}
+	
+	@JsonIgnore
+	public boolean isFrozen() {
+		return frozen != null;
 	}
 	
 //---------------------------------------Getters------------------------------------------------	
@@ -83,7 +193,7 @@ public class MealLabInfo {
 	}
 	
 	public String getCategory() {              // Gets the meal's category
-		return category;
+		return SymbolTable.symbol(categoryId);
 	}
 	
 	public String getInstructions() {         // Gets the meal's instructions
@@ -91,43 +201,84 @@ public class MealLabInfo {
 	}
 	
 	public String getArea() {                 // Gets the meal's geographic origin
-		return area;
+		return SymbolTable.symbol(areaId);
 	}
 	
 	public String getThumbnail() {            // Gets the meal's thumbnail image URL
 		return thumbnail;
 	}
 	
-	public List<String> getIngredients() {            // Gets the list of ingredients
-		return new ArrayList<>(ingredients);
+	public List<String> getIngredients() {            // Gets the ingredients (read-only view, no copy)
+		return ingredients().nameView;
+	}
+	
+	public List<String> getMeasures() {              // Gets the measures, one per ingredient (read-only view)
+		return ingredients().measureView;
+	}
+	
+	@JsonIgnore
+	public List<MealIngredient> getIngredientPairs() {  // Gets ingredient + measure pairs (read-only view)
+		return ingredients().pairView;
+	}
+	
+	public String ingredientAt(int index) {          // Gets one ingredient without a list
+		return SymbolTable.symbol(ingredients().ids[index]);
+	}
+	
+	public String measureAt(int index) {             // Gets the measure of ingredientAt(index), "" if none
+		return ingredients().measures[index];
+	}
+	
+//-------------------------------------Symbol IDs-------------------------------------------
+// The same values as SymbolTable IDs: grouping and filtering compare ints instead of Strings
+	
+	@JsonIgnore
+	public int getCategoryId() {                    // SymbolTable ID of the category (SymbolTable.NONE if null)
+		return categoryId;
+	}
+	
+	@JsonIgnore
+	public int getAreaId() {                        // SymbolTable ID of the area (SymbolTable.NONE if null)
+		return areaId;
+	}
+	
+	public int ingredientIdAt(int index) {          // SymbolTable ID of ingredientAt(index)
+		return ingredients().ids[index];
 	}
 	
-	public List<String> getMeasures() {              // Gets the list of measures
-		return new ArrayList<>(measures);
+	public boolean hasIngredientId(int symbolId) {  // True when one of the ingredients has exactly this ID
+		for (int id : ingredients().ids) {
+			if (id == symbolId) {
+				return true;
+			}
+		}
+		return false;
 	}
 	
 //-------------------------------------Utility Methods--------------------------------------
+// Derived values: @JsonIgnore keeps them out of serialized meals (see also storage.MealLabInfoCodec)
 	
+	@JsonIgnore
 	public int getIngredientsCount() {              //Gets the number of ingredients in this meal
-		return ingredients.size();
+		return ingredients().ids.length;
 	}
 	
 	// Gets a formatted string combining ingredients with their measurements.
+	@JsonIgnore
 	public String getFormattedIngredients() {            
+		Ingredients current = ingredients();
 		StringBuilder sb = new StringBuilder();
-		int size = ingredients.size();
 	    
-		for (int i = 0; i < size; i++) {
+		for (int i = 0; i < current.ids.length; i++) {
 			if (i > 0) {
 				sb.append("\n");
 			}
-			String ingredient = ingredients.get(i);
-			String measure = (i < measures.size()) ? measures.get(i) : "";
+			String measure = current.measures[i];
 			
 			if(!measure.isEmpty()) {
 				sb.append(measure).append(" ");
 			}
-			sb.append(ingredient);
+			sb.append(SymbolTable.symbol(current.ids[i]));
 		}
 		
 		return sb.toString();	
@@ -135,6 +286,7 @@ public class MealLabInfo {
 	
 //----------------This method checks if the recipe is valid to be appeared on the UI-----------
 	
+	@JsonIgnore
 	public boolean isValid() {
 		// Checks the basics (id, name etc)
 		boolean hasBasicInfo = id != null && !id.trim().isEmpty() &&
@@ -143,7 +295,7 @@ public class MealLabInfo {
 				               instructions != null && !instructions.trim().isEmpty();
 		
 		//Checks the ingredients
-		boolean hasIngredients = ingredients != null && !ingredients.isEmpty();
+		boolean hasIngredients = getIngredientsCount() > 0;
 		
 		return hasBasicInfo && hasIngredients;
 	}
@@ -154,15 +306,49 @@ public class MealLabInfo {
 		return "MealLabInfo{" +
 	            "id=" + id + "'\n" +
 				", name='" + name + "'\n" +
-	            ", category='" + category + "'\n" +
+	            ", category='" + getCategory() + "'\n" +
 				", instructions='" + instructions + "'\n" +
-	            ", area='" + area + "'\n" +
-				", ingredients=" + ingredients.size() + "items" +
-	            ", measures=" + measures.size() + "items" +
+	            ", area='" + getArea() + "'\n" +
+				", ingredients=" + getIngredientsCount() + "items" +
 				", thumbnail='" + thumbnail + "'\n" +	          
 	            '}';
 	}
 		
+//---------------------------------------Private Methods----------------------------------------
+	
+	// The frozen ingredients; on the reflective path the first call compacts the filled slots
+	private Ingredients ingredients() {
+		Ingredients current = frozen;
+		return current != null ? current : freezeSlots();
+	}
+	
+	private synchronized Ingredients freezeSlots() {
+		if (frozen != null) {
+			return frozen;
+		}
+		// Keep the slots that have an ingredient; the measure of the same slot goes with it ("" if blank)
+		int count = 0;
+		for (String ingredient : ingredientSlots) {
+			if (!MealLabInfoDeserializer.isBlank(ingredient)) {
+				count++;
+			}
+		}
+		String[] names = new String[count];
+		String[] measures = new String[count];
+		int next = 0;
+		for (int i = 0; i < ingredientSlots.length; i++) {
+			if (!MealLabInfoDeserializer.isBlank(ingredientSlots[i])) {
+				names[next] = ingredientSlots[i].trim();
+				measures[next] = MealLabInfoDeserializer.isBlank(measureSlots[i]) ? "" : measureSlots[i].trim();
+				next++;
+			}
+		}
+		ingredientSlots = null;
+		measureSlots = null;
+		frozen = count == 0 ? NO_INGREDIENTS : new Ingredients(names, measures);
+		return frozen;
+	}
+		
 }
 
 
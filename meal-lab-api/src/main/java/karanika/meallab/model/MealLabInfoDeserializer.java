@@ -0,0 +1,122 @@
+package karanika.meallab.model;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Hand-written Jackson deserializer for one meal object of TheMealDB API.
+ * It replaces the reflective @JsonCreator + @JsonAnySetter path:
+ * - strIngredientN / strMeasureN are matched by their number N (1-20), not by arrival order,
+ *   so an ingredient is always paired with the measure of the same slot.
+ * - The slot number is read from the key's characters, no substring or trim per key.
+ * - The ingredient and measure lists are built once, with exactly the right size.
+ */
+
+public class MealLabInfoDeserializer extends StdDeserializer<MealLabInfo> {
+	
+	private static final long serialVersionUID = 1L;
+	
+	static final int MAX_SLOTS = 20;                       // The API has strIngredient1 - strIngredient20
+	
+	private static final String INGREDIENT_PREFIX = "strIngredient";
+	private static final String MEASURE_PREFIX = "strMeasure";
+	
+	public MealLabInfoDeserializer() {
+		super(MealLabInfo.class);
+	}
+	
+	@Override
+	public MealLabInfo deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+		JsonToken token = parser.currentToken();
+		if (token == JsonToken.START_OBJECT) {
+			token = parser.nextToken();
+		}
+		
+		String id = null, name = null, category = null, instructions = null, area = null, thumbnail = null;
+		String[] ingredientSlots = new String[MAX_SLOTS];
+		String[] measureSlots = new String[MAX_SLOTS];
+		
+		for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+			String field = parser.currentName();
+			JsonToken value = parser.nextToken();
+			if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+				parser.skipChildren();          // Not part of a meal
+				continue;
+			}
+			String text = (value == JsonToken.VALUE_NULL) ? null : parser.getText();
+			
+			switch (field) {
+				case "idMeal":          id = text; break;
+				case "strMeal":         name = text; break;
+				case "strCategory":     category = text; break;
+				case "strInstructions": instructions = text; break;
+				case "strArea":         area = text; break;
+				case "strMealThumb":    thumbnail = text; break;
+				default:
+					int slot = slotOf(field, INGREDIENT_PREFIX);
+					if (slot >= 0) {
+						ingredientSlots[slot] = text;
+					} else if ((slot = slotOf(field, MEASURE_PREFIX)) >= 0) {
+						measureSlots[slot] = text;
+					}
+			}
+		}
+		
+		// Keep the slots that have an ingredient; the measure of the same slot goes with it ("" if blank)
+		int count = 0;
+		for (int i = 0; i < MAX_SLOTS; i++) {
+			if (!isBlank(ingredientSlots[i])) {
+				count++;
+			}
+		}
+		String[] ingredients = new String[count];
+		String[] measures = new String[count];
+		int next = 0;
+		for (int i = 0; i < MAX_SLOTS; i++) {
+			if (!isBlank(ingredientSlots[i])) {
+				ingredients[next] = ingredientSlots[i].trim();
+				measures[next] = isBlank(measureSlots[i]) ? "" : measureSlots[i].trim();
+				next++;
+			}
+		}
+		
+		return new MealLabInfo(id, name, category, instructions, area, thumbnail, ingredients, measures);
+	}
+	
+//---------------------------------------Private Methods----------------------------------------
+	
+	// Returns the 0-based slot for keys like "strIngredient12", or -1 if the key does not match
+	static int slotOf(String field, String prefix) {
+		int length = field.length();
+		int start = prefix.length();
+		if (length <= start || length > start + 2 || !field.startsWith(prefix)) {
+			return -1;
+		}
+		int number = 0;
+		for (int i = start; i < length; i++) {
+			char c = field.charAt(i);
+			if (c < '0' || c > '9') {
+				return -1;
+			}
+			number = number * 10 + (c - '0');
+		}
+		return (number >= 1 && number <= MAX_SLOTS) ? number - 1 : -1;
+	}
+	
+	// Blank check without allocating a trimmed copy
+	static boolean isBlank(String value) {
+		if (value == null) {
+			return true;
+		}
+		for (int i = 0; i < value.length(); i++) {
+			if (!Character.isWhitespace(value.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
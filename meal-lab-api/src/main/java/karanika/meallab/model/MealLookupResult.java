@@ -0,0 +1,49 @@
+package karanika.meallab.model;
+
+// Outcome of one ID in a bulk lookup (MealLabServices.getMealDetailsByIds).
+// Exactly one of the following holds: the meal was found, the ID is unknown, or the lookup failed.
+
+public final class MealLookupResult {
+	
+	private final String id;                    // The requested meal ID
+	private final MealLabInfo meal;             // Full meal details, null when not found or failed
+	private final Exception error;              // Why the lookup failed, null on success
+	
+//----------------------------------------Constructor-----------------------------------------
+	
+	public MealLookupResult(String id, MealLabInfo meal, Exception error) {
+		this.id = id;
+		this.meal = meal;
+		this.error = error;
+	}
+	
+//-------------------------------------------Getters--------------------------------------------
+	
+	public String getId() {
+		return id;
+	}
+	
+	public MealLabInfo getMeal() {
+		return meal;
+	}
+	
+	public Exception getError() {
+		return error;
+	}
+	
+	public boolean isFound() {                   // The API returned the meal
+		return meal != null;
+	}
+	
+	public boolean isFailed() {                  // The request itself failed (network, HTTP error, bad ID)
+		return error != null;
+	}
+	
+	@Override
+	public String toString() {
+		if (error != null) {
+			return "MealLookupResult{id=" + id + ", error=" + error + "}";
+		}
+		return "MealLookupResult{id=" + id + ", found=" + isFound() + "}";
+	}
+}
@@ -0,0 +1,73 @@
+package karanika.meallab.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Process-wide dictionary of the values that repeat across meals (categories, areas, ingredient names).
+// Each distinct value gets a small int ID once; MealLabInfo stores only the IDs, and every meal that says
+// "Chicken" or "Italian" shares one String instance. IDs are dense (0..size()-1) and never reused,
+// so callers can keep per-symbol data in plain arrays. -1 stands for null.
+// The vocabulary of TheMealDB is a few hundred values, so entries are never removed. Thread-safe.
+
+public final class SymbolTable {
+
+	public static final int NONE = -1;                       // ID of a null value
+
+	private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+	private static volatile String[] symbols = new String[256];      // ID -> value
+	private static int count;                                // Guarded by IDS (writes only)
+
+	private SymbolTable() {
+	}
+
+	// ID of the value, registering it on first sight (NONE for null)
+	public static int intern(String value) {
+		if (value == null) {
+			return NONE;
+		}
+		Integer id = IDS.get(value);
+		return id != null ? id : register(value);
+	}
+
+	// ID of an already known value, NONE when it was never interned (nothing is registered)
+	public static int lookup(String value) {
+		if (value == null) {
+			return NONE;
+		}
+		Integer id = IDS.get(value);
+		return id == null ? NONE : id;
+	}
+
+	// The value of an ID (null for NONE)
+	public static String symbol(int id) {
+		return id == NONE ? null : symbols[id];
+	}
+
+	// Number of IDs handed out so far; every ID is below this
+	public static int size() {
+		return IDS.size();
+	}
+
+//---------------------------------------Private Methods----------------------------------------
+
+	// The value is stored in the array before its ID is published in the map,
+	// so whoever gets an ID from IDS also sees symbols[id]
+	private static int register(String value) {
+		synchronized (IDS) {
+			Integer id = IDS.get(value);
+			if (id != null) {
+				return id;
+			}
+			int next = count;
+			String[] current = symbols;
+			if (next == current.length) {
+				current = Arrays.copyOf(current, next * 2);
+			}
+			current[next] = value;
+			symbols = current;
+			count = next + 1;
+			IDS.put(value, next);
+			return next;
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package karanika.meallab.model;
+
+import java.util.Locale;
+
+// Canonical forms of user search terms, shared by caches, the offline catalog and the local indexes.
+// "  Chicken   Breast", "chicken_breast" and "CHICKEN BREAST" all become "chicken breast".
+
+public final class TermNormalizer {
+	
+	private TermNormalizer() {
+	}
+	
+	// Trims, collapses inner whitespace and lower-cases (meal names, categories, areas)
+	public static String normalizeName(String value) {
+		if (value == null) {
+			return "";
+		}
+		StringBuilder sb = new StringBuilder(value.length());
+		boolean pendingSpace = false;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (Character.isWhitespace(c)) {
+				pendingSpace = sb.length() > 0;
+				continue;
+			}
+			if (pendingSpace) {
+				sb.append(' ');
+				pendingSpace = false;
+			}
+			sb.append(c);
+		}
+		return sb.toString().toLowerCase(Locale.ROOT);
+	}
+	
+	// Same as normalizeName, and treats '_' as a space (the API writes ingredients as Chicken_Breast)
+	public static String normalizeIngredient(String value) {
+		return value == null ? "" : normalizeName(value.replace('_', ' '));
+	}
+}
@@ -0,0 +1,76 @@
+package karanika.meallab.services;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import karanika.meallab.model.MealLookupResult;
+
+/**
+ * Runs the lookups of MealLabServices.getMealDetailsByIds with a sliding window:
+ * at most maxConcurrency lookups are in flight, and each one that finishes starts the next.
+ * Results are stored by position, so the output keeps the order of the input IDs.
+ */
+
+final class BulkLookup {
+	
+	private final List<String> ids;
+	private final Function<String, CompletableFuture<MealLookupResult>> lookup;
+	private final int maxConcurrency;
+	
+	private final MealLookupResult[] results;
+	private final AtomicInteger next = new AtomicInteger();
+	private final AtomicInteger remaining;
+	private final CompletableFuture<List<MealLookupResult>> done = new CompletableFuture<>();
+	
+	// The lookup function must never complete exceptionally (errors belong inside the MealLookupResult)
+	BulkLookup(List<String> ids, Function<String, CompletableFuture<MealLookupResult>> lookup, int maxConcurrency) {
+		this.ids = ids;
+		this.lookup = lookup;
+		this.maxConcurrency = maxConcurrency;
+		this.results = new MealLookupResult[ids.size()];
+		this.remaining = new AtomicInteger(ids.size());
+	}
+	
+	CompletableFuture<List<MealLookupResult>> start() {
+		if (ids.isEmpty()) {
+			done.complete(Collections.emptyList());
+			return done;
+		}
+		for (int i = 0; i < Math.min(maxConcurrency, ids.size()); i++) {
+			runSlot();
+		}
+		return done;
+	}
+	
+	// Keeps one slot busy. Lookups that finish immediately (cache hits) are handled in the loop,
+	// so a long run of hits does not recurse.
+	private void runSlot() {
+		while (true) {
+			int index = next.getAndIncrement();
+			if (index >= ids.size()) {
+				return;
+			}
+			CompletableFuture<MealLookupResult> future = lookup.apply(ids.get(index));
+			if (future.isDone()) {
+				record(index, future.join());
+				continue;
+			}
+			future.whenComplete((result, error) -> {
+				record(index, result);
+				runSlot();
+			});
+			return;
+		}
+	}
+	
+	private void record(int index, MealLookupResult result) {
+		results[index] = result;
+		if (remaining.decrementAndGet() == 0) {
+			done.complete(Collections.unmodifiableList(Arrays.asList(results)));
+		}
+	}
+}
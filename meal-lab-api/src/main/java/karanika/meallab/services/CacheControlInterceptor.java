@@ -0,0 +1,54 @@
+package karanika.meallab.services;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Network interceptor for the disk cache: rewrites the Cache-Control header of API responses
+ * for endpoints with a configured max-age (the server's own headers are honored otherwise).
+ * ETag and Last-Modified are left untouched, so OkHttp revalidates expired entries with a
+ * conditional request. random.php is never stored.
+ */
+
+final class CacheControlInterceptor implements Interceptor {
+	
+	private final Map<String, Duration> maxAgeByEndpoint;
+	
+	CacheControlInterceptor(Map<String, Duration> maxAgeByEndpoint) {
+		this.maxAgeByEndpoint = maxAgeByEndpoint;
+	}
+	
+	@Override
+	public Response intercept(Chain chain) throws IOException {
+		Response response = chain.proceed(chain.request());
+		
+		String endpoint = endpointOf(chain);
+		if (MealLabServices.RANDOM_ENDPOINT.equals(endpoint)) {
+			return response.newBuilder()
+					.header("Cache-Control", "no-store")
+					.removeHeader("Pragma")
+					.build();
+		}
+		
+		Duration maxAge = maxAgeByEndpoint.get(endpoint);
+		if (maxAge == null || !response.isSuccessful()) {
+			return response;
+		}
+		return response.newBuilder()
+				.header("Cache-Control", "public, max-age=" + maxAge.getSeconds())
+				.removeHeader("Pragma")
+				.removeHeader("Expires")
+				.build();
+	}
+	
+	// e.g. ".../api/json/v1/1/lookup.php" -> "lookup.php"
+	private static String endpointOf(Chain chain) {
+		List<String> segments = chain.request().url().pathSegments();
+		return segments.isEmpty() ? "" : segments.get(segments.size() - 1);
+	}
+}
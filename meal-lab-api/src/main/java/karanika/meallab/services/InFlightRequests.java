@@ -0,0 +1,117 @@
+package karanika.meallab.services;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import karanika.meallab.model.MealResponse;
+import okhttp3.Call;
+
+/**
+ * Single-flight registry used by MealLabServices: concurrent callers asking for the same URL
+ * join one "flight" and share one HTTP call and one parsed MealResponse.
+ * A flight leaves the registry as soon as it completes, so later callers start a fresh one
+ * (or, normally, hit the response cache that the leader filled just before completing).
+ */
+
+final class InFlightRequests {
+	
+	private final ConcurrentHashMap<String, Flight> flights = new ConcurrentHashMap<>();
+	
+	// Joins the running flight for the URL or starts a new one. The caller is counted as a waiter.
+	Flight join(String url) {
+		while (true) {
+			Flight existing = flights.get(url);
+			if (existing != null) {
+				if (existing.attach()) {
+					return existing;
+				}
+				flights.remove(url, existing);     // Finished or abandoned, replace it
+				continue;
+			}
+			Flight created = new Flight();
+			created.attach();
+			if (flights.putIfAbsent(url, created) == null) {
+				created.result.whenComplete((response, error) -> flights.remove(url, created));
+				return created;
+			}
+		}
+	}
+	
+	// A private flight that is never shared (used for random.php, where every caller wants its own meal)
+	static Flight solo() {
+		Flight flight = new Flight();
+		flight.attach();
+		return flight;
+	}
+	
+	// Number of flights currently on the wire
+	int size() {
+		return flights.size();
+	}
+	
+//-------------------------------------------Flight---------------------------------------------
+	
+	static final class Flight {
+		
+		final CompletableFuture<MealResponse> result = new CompletableFuture<>();
+		
+		private final AtomicBoolean launched = new AtomicBoolean();
+		private int waiters;
+		private boolean abandoned;
+		private Call call;
+		
+		// Returns true exactly once: the caller that gets true must send the request
+		boolean claim() {
+			return launched.compareAndSet(false, true);
+		}
+		
+		synchronized boolean attach() {
+			if (abandoned || result.isDone()) {
+				return false;
+			}
+			waiters++;
+			return true;
+		}
+		
+		// Called when an asynchronous waiter cancels. The Call is only cancelled when nobody is left.
+		synchronized void detach() {
+			if (--waiters == 0 && !result.isDone()) {
+				abandoned = true;
+				if (call != null) {
+					call.cancel();
+				}
+				result.cancel(false);
+			}
+		}
+		
+		synchronized void setCall(Call call) {
+			this.call = call;
+			if (abandoned) {
+				call.cancel();
+			}
+		}
+		
+		// Blocks until the leader finishes and rethrows its error, if any
+		MealResponse await() throws IOException {
+			try {
+				return result.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for a shared request");
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw new IOException(cause);
+			}
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package karanika.meallab.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.model.TermNormalizer;
+
+/**
+ * Search-as-you-type by meal name on top of MealLabServices, with as few requests as possible:
+ * - Text shorter than minLength is answered with no meals and no request.
+ * - Text that extends the last query that was read to the end ("chick" after "chic") is answered from
+ *   that result: search.php matches names by substring, so every hit of "chick" is also a hit of "chic".
+ * - Repeated text is answered by the response cache of the service, when it has one.
+ * - Everything else is one streaming request (FUNCTION 14): onMeal gets the meals as they are parsed.
+ * The caller cancels the search that a newer one replaces; cancelling the future cancels its HTTP call
+ * and nothing more reaches onMeal. Debouncing the keystrokes is up to the caller. Thread-safe.
+ */
+
+public final class LiveSearch {
+
+	public static final int DEFAULT_MIN_LENGTH = 2;
+
+	private final MealLabServices services;
+	private final int minLength;
+
+	private String completedQuery;                      // Normalized text of the last search read to the end
+	private List<MealLabInfo> completedResults;         // ... and all of its meals
+	private final AtomicInteger requestCount = new AtomicInteger();
+	private final AtomicInteger localCount = new AtomicInteger();
+
+//----------------------------------------Constructor-----------------------------------------
+
+	public LiveSearch(MealLabServices services) {
+		this(services, DEFAULT_MIN_LENGTH);
+	}
+
+	public LiveSearch(MealLabServices services, int minLength) {
+		if (services == null) {
+			throw new IllegalArgumentException("Services cannot be null");
+		}
+		if (minLength < 1) {
+			throw new IllegalArgumentException("Minimum length must be at least 1");
+		}
+		this.services = services;
+		this.minLength = minLength;
+	}
+
+//--------------------------------------------Search--------------------------------------------
+
+	// All meals whose name contains the text. onMeal gets each of them first: on the calling thread when
+	// the answer is local, otherwise on an HTTP thread while the response is read.
+	public CompletableFuture<List<MealLabInfo>> search(String text, Consumer<? super MealLabInfo> onMeal) {
+		if (onMeal == null) {
+			throw new IllegalArgumentException("Consumer cannot be null");
+		}
+		String query = TermNormalizer.normalizeName(text);
+		if (query.length() < minLength) {
+			return CompletableFuture.completedFuture(Collections.emptyList());
+		}
+
+		List<MealLabInfo> local = answerLocally(query);
+		if (local != null) {
+			localCount.incrementAndGet();
+			local.forEach(onMeal);
+			return CompletableFuture.completedFuture(local);
+		}
+
+		// Filled on one HTTP thread, read after the stream completed
+		List<MealLabInfo> meals = new ArrayList<>();
+		CompletableFuture<Integer> stream = services.streamMealsByNameAsync(query, meal -> {
+			meals.add(meal);
+			onMeal.accept(meal);
+		});
+		if (stream.isDone()) {
+			localCount.incrementAndGet();                 // Response cache or offline catalog
+		} else {
+			requestCount.incrementAndGet();
+		}
+
+		CompletableFuture<List<MealLabInfo>> result = new CompletableFuture<>();
+		result.whenComplete((list, error) -> {
+			if (result.isCancelled()) {
+				stream.cancel(true);
+			}
+		});
+		stream.whenComplete((count, error) -> {
+			if (error != null) {
+				result.completeExceptionally(error);
+				return;
+			}
+			List<MealLabInfo> all = Collections.unmodifiableList(meals);
+			remember(query, all);
+			result.complete(all);
+		});
+		return result;
+	}
+
+	public int getRequestCount() {                     // Searches that went to the network
+		return requestCount.get();
+	}
+
+	public int getLocalAnswerCount() {                 // Searches answered without a request
+		return localCount.get();
+	}
+
+//---------------------------------------Private Methods----------------------------------------
+
+	// The meals of the last completed search that also contain the new text, or null if it is not a refinement
+	private synchronized List<MealLabInfo> answerLocally(String query) {
+		if (completedQuery == null || !query.contains(completedQuery)) {
+			return null;
+		}
+		List<MealLabInfo> matches = new ArrayList<>();
+		for (MealLabInfo meal : completedResults) {
+			if (TermNormalizer.normalizeName(meal.getName()).contains(query)) {
+				matches.add(meal);
+			}
+		}
+		return Collections.unmodifiableList(matches);
+	}
+
+	private synchronized void remember(String query, List<MealLabInfo> meals) {
+		completedQuery = query;
+		completedResults = meals;
+	}
+}
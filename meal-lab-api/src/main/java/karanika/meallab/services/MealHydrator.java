@@ -0,0 +1,185 @@
+package karanika.meallab.services;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import karanika.meallab.model.MealLabInfo;
+
+/**
+ * Fills in the partial meals of filter.php results (only ID, name and thumbnail) with their full details.
+ * - hydrate(meal): the full record on demand (the selected row). It starts at once and does not wait
+ *   for queued prefetches.
+ * - prefetch(rows, from, count): looks up the next rows in the background with at most maxConcurrency
+ *   lookups at a time. A new call replaces the rows that have not started yet, so scrolling fast does not
+ *   fetch everything that was scrolled past.
+ * - getIfHydrated(meal): the full record if it is already known, without waiting (for rendering).
+ * - setOnHydrated(listener): told about every full record that arrives (e.g. to replace the table row).
+ * Lookups go through MealLabServices.getMealDetailsByIdAsync, so its response cache and request
+ * coalescing apply; the last "capacity" full records are also kept here by ID. Thread-safe.
+ */
+
+public final class MealHydrator {
+
+	public static final int DEFAULT_MAX_CONCURRENCY = 4;
+	public static final int DEFAULT_CAPACITY = 500;
+
+	private final MealLabServices services;
+	private final int maxConcurrency;
+
+	private final Map<String, MealLabInfo> hydrated;                                // id -> full meal, LRU order
+	private final Map<String, CompletableFuture<MealLabInfo>> inFlight = new HashMap<>();
+	private final ArrayDeque<MealLabInfo> queue = new ArrayDeque<>();                // Prefetches not started yet
+	private int activePrefetches;
+	private boolean pumping;
+	private volatile Consumer<MealLabInfo> onHydrated;                             // Optional, null = none
+
+//----------------------------------------Constructor-----------------------------------------
+
+	public MealHydrator(MealLabServices services) {
+		this(services, DEFAULT_MAX_CONCURRENCY, DEFAULT_CAPACITY);
+	}
+
+	public MealHydrator(MealLabServices services, int maxConcurrency, int capacity) {
+		if (services == null) {
+			throw new IllegalArgumentException("Services cannot be null");
+		}
+		if (maxConcurrency < 1 || capacity < 1) {
+			throw new IllegalArgumentException("Concurrency and capacity must be at least 1");
+		}
+		this.services = services;
+		this.maxConcurrency = maxConcurrency;
+		this.hydrated = new LinkedHashMap<String, MealLabInfo>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, MealLabInfo> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+//-------------------------------------------Hydration------------------------------------------
+
+	// True for the shape filter.php returns: no instructions and no ingredients
+	public static boolean isPartial(MealLabInfo meal) {
+		return meal != null && meal.getId() != null && meal.getInstructions() == null && meal.getIngredientsCount() == 0;
+	}
+
+	// The full record when it is already known, otherwise the meal itself (never blocks)
+	public synchronized MealLabInfo getIfHydrated(MealLabInfo meal) {
+		if (!isPartial(meal)) {
+			return meal;
+		}
+		MealLabInfo full = hydrated.get(meal.getId());
+		return full != null ? full : meal;
+	}
+
+	// The full record. A complete meal is returned as it is; when the API does not know the ID,
+	// the partial meal is returned. A failed lookup fails the future.
+	public synchronized CompletableFuture<MealLabInfo> hydrate(MealLabInfo meal) {
+		if (!isPartial(meal)) {
+			return CompletableFuture.completedFuture(meal);
+		}
+		MealLabInfo full = hydrated.get(meal.getId());
+		if (full != null) {
+			return CompletableFuture.completedFuture(full);
+		}
+		CompletableFuture<MealLabInfo> running = inFlight.get(meal.getId());
+		return running != null ? running : start(meal, false);
+	}
+
+	// Looks up rows[from .. from + count - 1] in the background, replacing any older prefetch still waiting
+	public synchronized void prefetch(List<MealLabInfo> rows, int from, int count) {
+		queue.clear();
+		int end = Math.min(rows.size(), Math.max(0, from) + Math.max(0, count));
+		for (int i = Math.max(0, from); i < end; i++) {
+			MealLabInfo meal = rows.get(i);
+			if (isPartial(meal) && !hydrated.containsKey(meal.getId()) && !inFlight.containsKey(meal.getId())) {
+				queue.add(meal);
+			}
+		}
+		pump();
+	}
+
+	// Drops the prefetches that have not started yet (e.g. a new search replaced the rows)
+	public synchronized void cancelPrefetch() {
+		queue.clear();
+	}
+
+	// Called with each full record as it arrives, on the thread that completed the lookup
+	public void setOnHydrated(Consumer<MealLabInfo> listener) {
+		this.onHydrated = listener;
+	}
+
+	public synchronized int getQueuedCount() {                   // Prefetches waiting for a free slot
+		return queue.size();
+	}
+
+//---------------------------------------Private Methods----------------------------------------
+
+	// Starts prefetches while slots are free. Lookups that finish at once (cache hits) call back into
+	// pump; the flag keeps that from recursing, the loop picks the next row instead.
+	private void pump() {
+		if (pumping) {
+			return;
+		}
+		pumping = true;
+		try {
+			while (activePrefetches < maxConcurrency && !queue.isEmpty()) {
+				MealLabInfo meal = queue.poll();
+				if (hydrated.containsKey(meal.getId()) || inFlight.containsKey(meal.getId())) {
+					continue;
+				}
+				activePrefetches++;
+				start(meal, true);
+			}
+		} finally {
+			pumping = false;
+		}
+	}
+
+	// Registered as in flight before the lookup starts, so a lookup that completes at once is cleaned up too
+	private CompletableFuture<MealLabInfo> start(MealLabInfo meal, boolean isPrefetch) {
+		String id = meal.getId();
+		CompletableFuture<MealLabInfo> result = new CompletableFuture<>();
+		inFlight.put(id, result);
+
+		CompletableFuture<MealLabInfo> lookup;
+		try {
+			lookup = services.getMealDetailsByIdAsync(id);
+		} catch (RuntimeException e) {
+			lookup = CompletableFuture.failedFuture(e);
+		}
+		lookup.whenComplete((full, error) -> finish(meal, isPrefetch, result, full, error));
+		return result;
+	}
+
+	private void finish(MealLabInfo meal, boolean isPrefetch, CompletableFuture<MealLabInfo> result,
+			MealLabInfo full, Throwable error) {
+		synchronized (this) {
+			inFlight.remove(meal.getId());
+			if (full != null) {
+				hydrated.put(meal.getId(), full);
+			}
+			if (isPrefetch) {
+				activePrefetches--;
+				pump();
+			}
+		}
+		// Completed outside the lock, so callbacks of the caller can call back into the hydrator
+		if (error != null) {
+			result.completeExceptionally(error);
+		} else {
+			result.complete(full != null ? full : meal);
+		}
+		Consumer<MealLabInfo> listener = onHydrated;
+		if (full != null && listener != null) {
+			listener.accept(full);
+		}
+	}
+}
@@ -2,29 +2,69 @@ package karanika.meallab.services;
 
 
 
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;                             // Library that allows connection with the Internet
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.Response;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;      // Library that allows deserialization for Json
+import karanika.meallab.cache.CacheKey;
+import karanika.meallab.cache.MealCache;
+import karanika.meallab.catalog.MealCatalog;
+import karanika.meallab.index.TypeaheadIndex;
 import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.model.MealLookupResult;
 import karanika.meallab.model.MealResponse;
+import karanika.meallab.model.TermNormalizer;
 import karanika.meallab.exception.MealLabException;
+import karanika.meallab.services.InFlightRequests.Flight;
 
+import java.io.File;
 import java.io.IOException;                              // Exception for handling input/output issues
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 
-public class MealLabServices {
+/**
+ * Client for TheMealDB API. One instance is meant to live as long as the application:
+ * it owns (or shares) a warm OkHttp connection pool, so create it once and close() it on exit.
+ */
+
+public class MealLabServices implements AutoCloseable {
 	
 //---------------------------------------------Constants-----------------------------------------
-//Define the API endpoints as constants to avoid typos.
-   private static final String SEARCH_ENDPOINT = "search.php";
-   private static final String FILTER_ENDPOINT = "filter.php";
-   private static final String LOOKUP_ENDPOINT = "lookup.php";
-   private static final String RANDOM_ENDPOINT = "random.php";
+//Define the API endpoints as constants to avoid typos. (Public, so caches can be configured per endpoint)
+   public static final String SEARCH_ENDPOINT = "search.php";
+   public static final String FILTER_ENDPOINT = "filter.php";
+   public static final String LOOKUP_ENDPOINT = "lookup.php";
+   public static final String RANDOM_ENDPOINT = "random.php";
+   public static final String LIST_ENDPOINT = "list.php";
    
  
 //---------------------------------------------Fields---------------------------------------------  
@@ -33,12 +73,27 @@ public class MealLabServices {
    private final String apiKey;
   
    private final OkHttpClient client;
+   private final boolean ownsClient;           // Only a client we built ourselves is shut down by close()
+   private final Cache diskCache;              // Optional HTTP cache on disk (null = none)
+   private final AtomicBoolean closed = new AtomicBoolean();
    private final ObjectMapper mapper;
    
+   private final MealCache cache;              // Optional response cache (null = always go to the network)
+   private final MealCatalog offlineCatalog;   // Offline mode: every query is answered from this mirror
+   private final TypeaheadIndex typeahead;     // Optional autocomplete, learns every name we receive (null = none)
+   private final int maxConcurrentLookups;     // Parallel requests used by the bulk lookup
+   private final InFlightRequests inFlight = new InFlightRequests();   // Requests currently on the wire
+   
     
 //---------------Constructor: Initializes the service with the necessary configuration-------------
    
    public MealLabServices(String apiUrl, String apiKey) {
+	   this(new Builder(apiUrl, apiKey));
+       }
+   
+   private MealLabServices(Builder builder) {
+	   String apiUrl = builder.apiUrl;
+	   String apiKey = builder.apiKey;
 	   
 	   // Validation: Prevent service startup without URL or API key
 	   if (apiUrl == null || apiUrl.trim().isEmpty()) {
@@ -52,16 +107,121 @@ public class MealLabServices {
 	   this.apiUrl = apiUrl.endsWith("/") ? apiUrl : apiUrl + "/";
 	   this.apiKey = apiKey;
 	   
-	// Configure client timeouts (abort if connection exceeds 10 seconds)
-	   this.client = new OkHttpClient.Builder()
-			   .connectTimeout(10, TimeUnit.SECONDS)
-			   .readTimeout(30, TimeUnit.SECONDS)
-			   .build();
+	   this.maxConcurrentLookups = builder.maxConcurrentLookups;
+	   
+	   OkHttpClient.Builder clientBuilder;
+	   if (builder.client != null) {
+		   // Shared client: its pool, dispatcher and timeouts belong to the caller
+		   clientBuilder = builder.client.newBuilder();
+		   this.ownsClient = false;
+	   } else {
+		   // Configure client timeouts (abort if connection exceeds 10 seconds).
+		   // HTTP/2 is preferred, so many requests to the API multiplex over one TLS connection.
+		   clientBuilder = new OkHttpClient.Builder()
+				   .connectTimeout(10, TimeUnit.SECONDS)
+				   .readTimeout(30, TimeUnit.SECONDS)
+				   .connectionPool(new ConnectionPool(builder.maxIdleConnections,
+						   builder.keepAlive.toMillis(), TimeUnit.MILLISECONDS))
+				   .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+		   this.ownsClient = true;
+	   }
+	   
+	   // Optional disk cache: survives restarts and revalidates with ETag / Last-Modified
+	   if (builder.diskCacheDirectory != null) {
+		   this.diskCache = new Cache(builder.diskCacheDirectory, builder.diskCacheMaxBytes);
+		   clientBuilder.cache(diskCache)
+				   .addNetworkInterceptor(new CacheControlInterceptor(new HashMap<>(builder.cacheMaxAge)));
+		   if (builder.maxStaleOnError != null) {
+			   clientBuilder.addInterceptor(new StaleOnErrorInterceptor(builder.maxStaleOnError.getSeconds()));
+		   }
+	   } else {
+		   this.diskCache = null;
+	   }
+	   
+	   // Optional request budget, applied where a request really goes to the network
+	   if (builder.requestsPerSecond > 0) {
+		   RateLimiter rateLimiter = new RateLimiter(builder.requestsPerSecond);
+		   clientBuilder.addNetworkInterceptor(chain -> {
+			   rateLimiter.acquire();
+			   return chain.proceed(chain.request());
+		   });
+	   }
+	   
+	   // A shared client without extra features is used as it is
+	   boolean extraFeatures = diskCache != null || builder.requestsPerSecond > 0;
+	   this.client = (!ownsClient && !extraFeatures) ? builder.client : clientBuilder.build();
+	   
+	   // OkHttp allows only 5 parallel calls per host by default, raise it to the bulk lookup limit
+	   if (ownsClient) {
+		   client.dispatcher().setMaxRequestsPerHost(Math.max(5, maxConcurrentLookups));
+	   }
 	   
 	   this.mapper = new ObjectMapper();
+	   this.cache = builder.cache;
+	   this.offlineCatalog = builder.offlineCatalog;
+	   this.typeahead = builder.typeahead;
+	   
+	   // Offline, the whole mirror is known up front
+	   if (typeahead != null && offlineCatalog != null) {
+		   typeahead.addMeals(offlineCatalog.getMeals());
+	   }
        }
  
    
+//-------------------------------------------Lifecycle------------------------------------------------
+   
+   // The underlying OkHttp client, e.g. to share its connection pool with another service instance
+   public OkHttpClient getHttpClient() {
+	   return client;
+       }
+   
+   // Opens a connection to the API host in the background (DNS, TCP and TLS), so the first real query
+   // does not pay for it. Sends one HEAD request to the API URL; any answer leaves a warm connection in
+   // the pool. Completes with true when the server answered, false when it failed or the service is offline.
+   public CompletableFuture<Boolean> warmUp() {
+	   CompletableFuture<Boolean> warm = new CompletableFuture<>();
+	   if (offlineCatalog != null) {
+		   warm.complete(false);
+		   return warm;
+	   }
+	   Request request = new Request.Builder().url(apiUrl).head().build();
+	   client.newCall(request).enqueue(new Callback() {
+		   @Override
+		   public void onFailure(Call failedCall, IOException e) {
+			   warm.complete(false);
+		   }
+
+		   @Override
+		   public void onResponse(Call successfulCall, Response response) {
+			   response.close();
+			   warm.complete(true);
+		   }
+	   });
+	   return warm;
+       }
+
+   // Releases the connection pool, dispatcher threads and disk cache.
+   // The pool and threads of a shared client (Builder.client) are left open.
+   @Override
+   public void close() {
+	   if (!closed.compareAndSet(false, true)) {
+		   return;
+	   }
+	   if (ownsClient) {
+		   client.dispatcher().cancelAll();
+		   client.dispatcher().executorService().shutdown();
+		   client.connectionPool().evictAll();
+	   }
+	   if (diskCache != null) {
+		   try {
+			   diskCache.close();
+		   } catch (IOException e) {
+			   // Nothing left to do, the cache journal is rebuilt on next start
+		   }
+	   }
+       }
+   
+   
 //-------------------------------------------Public Methods-------------------------------------------
 	   
 // FUNCTION 1: Search recipes by Name. Endpoint: search.php?s={name}
@@ -72,11 +232,17 @@ public class MealLabServices {
     	//We check whether the parameter is valid
     	validateParameter(mealName, "Meal name");
     	
-    	// Build the URL: .../search.php?s=Arrabiata
-    	String url = buildUrl(SEARCH_ENDPOINT, "s", mealName);
+    	// Offline mode: answer from the local mirror
+    	if (offlineCatalog != null) {
+    		return offlineCatalog.searchByName(mealName);
+    	}
+    	
+    	// Build the URL: .../search.php?s=arrabiata
+    	CacheKey key = requestKey(SEARCH_ENDPOINT, "s", mealName);
+    	String url = buildUrl(key);
     	
     	//Execute the request, expecting a list
-    	return executeRequestForList(url);  	
+    	return executeRequestForList(key, url);  	
     	}
     
 // FUNCTION 2: Search recipes by Ingredient. Endpoint: filter.php?i={ingredient}
@@ -86,10 +252,15 @@ public class MealLabServices {
     	
     	validateParameter(ingredient, "ingredient");
     	
-    	// Build the URL:.../filter.php?i=Chicken_Breast
-    	String url = buildUrl(FILTER_ENDPOINT, "i", ingredient);
+    	if (offlineCatalog != null) {
+    		return offlineCatalog.searchByIngredient(ingredient);
+    	}
+    	
+    	// Build the URL:.../filter.php?i=chicken_breast
+    	CacheKey key = requestKey(FILTER_ENDPOINT, "i", ingredient);
+    	String url = buildUrl(key);
     	
-    	return executeRequestForList(url);
+    	return executeRequestForList(key, url);
         }
     
 // FUNCTION 3: Retrieving full details based on the ID. Endpoint lookup.php?i={id}
@@ -99,11 +270,16 @@ public class MealLabServices {
     	
     	validateParameter(id, "Meal ID");
     	
+    	if (offlineCatalog != null) {
+    		return offlineCatalog.findById(id);
+    	}
+    	
     	// Build the URL:.../lookup.php?i=52772
-    	String url = buildUrl(LOOKUP_ENDPOINT, "i", id);
+    	CacheKey key = requestKey(LOOKUP_ENDPOINT, "i", id);
+    	String url = buildUrl(key);
     	
     	// Execute the request, expecting a single object
-    	return executeRequestForSingleMeal(url);
+    	return executeRequestForSingleMeal(key, url);
         }
     
 // FUNCTION 4: Retrieving a random recipe. Endpoint random.php
@@ -114,7 +290,8 @@ public class MealLabServices {
         // Here we have no parameters, we build the URL directly
     	String url = apiUrl + apiKey + "/" + RANDOM_ENDPOINT;
     	
-    	MealLabInfo meal = executeRequestForSingleMeal(url);
+    	// A null cache key: random results must never be cached
+    	MealLabInfo meal = (offlineCatalog != null) ? offlineCatalog.randomMeal() : executeRequestForSingleMeal(null, url);
     	
     	// Extra check: If for some reason the random returns null
         if (meal == null) {
@@ -124,53 +301,603 @@ public class MealLabServices {
     }
     
 
+//-------------------------------------Public Methods (Asynchronous)----------------------------------
+/** The following methods are the non-blocking versions of FUNCTION 1-4. They use OkHttp's enqueue(),
+ *  so no caller thread waits for the round trip. The optional executor is where the JSON is parsed
+ *  and the future is completed; without one the OkHttp dispatcher thread does it.
+ *  Cancelling the returned future also cancels the underlying HTTP Call.
+ *  A cache hit returns an already completed future.
+ */
+
+// FUNCTION 5: Asynchronous search by Name
+    
+    public CompletableFuture<List<MealLabInfo>> searchMealsByNameAsync(String mealName) {
+    	return searchMealsByNameAsync(mealName, null);
+    }
+    
+    public CompletableFuture<List<MealLabInfo>> searchMealsByNameAsync(String mealName, Executor executor) {
+    	validateParameter(mealName, "Meal name");
+    	
+    	if (offlineCatalog != null) {
+    		return CompletableFuture.completedFuture(offlineCatalog.searchByName(mealName));
+    	}
+    	CacheKey key = requestKey(SEARCH_ENDPOINT, "s", mealName);
+    	String url = buildUrl(key);
+    	return executeRequestAsync(key, url, executor, MealResponse::getMeals);
+    }
+    
+// FUNCTION 6: Asynchronous search by Ingredient
+    
+    public CompletableFuture<List<MealLabInfo>> searchMealsByIngredientAsync(String ingredient) {
+    	return searchMealsByIngredientAsync(ingredient, null);
+    }
+    
+    public CompletableFuture<List<MealLabInfo>> searchMealsByIngredientAsync(String ingredient, Executor executor) {
+    	validateParameter(ingredient, "ingredient");
+    	
+    	if (offlineCatalog != null) {
+    		return CompletableFuture.completedFuture(offlineCatalog.searchByIngredient(ingredient));
+    	}
+    	CacheKey key = requestKey(FILTER_ENDPOINT, "i", ingredient);
+    	String url = buildUrl(key);
+    	return executeRequestAsync(key, url, executor, MealResponse::getMeals);
+    }
+    
+// FUNCTION 7: Asynchronous lookup by ID
+    
+    public CompletableFuture<MealLabInfo> getMealDetailsByIdAsync(String id) {
+    	return getMealDetailsByIdAsync(id, null);
+    }
+    
+    public CompletableFuture<MealLabInfo> getMealDetailsByIdAsync(String id, Executor executor) {
+    	validateParameter(id, "Meal ID");
+    	
+    	if (offlineCatalog != null) {
+    		return CompletableFuture.completedFuture(offlineCatalog.findById(id));
+    	}
+    	CacheKey key = requestKey(LOOKUP_ENDPOINT, "i", id);
+    	String url = buildUrl(key);
+    	return executeRequestAsync(key, url, executor, MealResponse::getFirstMeal);
+    }
+    
+// FUNCTION 8: Asynchronous random recipe
+    
+    public CompletableFuture<MealLabInfo> getRandomMealAsync() {
+    	return getRandomMealAsync(null);
+    }
+    
+    public CompletableFuture<MealLabInfo> getRandomMealAsync(Executor executor) {
+    	if (offlineCatalog != null) {
+    		CompletableFuture<MealLabInfo> future = new CompletableFuture<>();
+    		MealLabInfo meal = offlineCatalog.randomMeal();
+    		if (meal == null) {
+    			future.completeExceptionally(new MealLabException("Offline catalog is empty", 0));
+    		} else {
+    			future.complete(meal);
+    		}
+    		return future;
+    	}
+    	String url = apiUrl + apiKey + "/" + RANDOM_ENDPOINT;
+    	
+    	return executeRequestAsync(null, url, executor, mealResponse -> {
+    		MealLabInfo meal = mealResponse.getFirstMeal();
+    		if (meal == null) {
+    			throw new MealLabException("Random meal API returned no results", 0);
+    		}
+    		return meal;
+    	});
+    }
+    
+    
+//-------------------------------------Public Methods (Bulk Lookup)-----------------------------------
+    
+// FUNCTION 9: Full details for many IDs at once (e.g. rehydrating favorites or filter.php results).
+//             Duplicate IDs are looked up once, results keep the order of first appearance and
+//             every ID gets its own MealLookupResult, so one bad ID does not fail the batch.
+    
+    public List<MealLookupResult> getMealDetailsByIds(Collection<String> ids) {
+    	return getMealDetailsByIdsAsync(ids, maxConcurrentLookups).join();
+    }
+    
+    public List<MealLookupResult> getMealDetailsByIds(Collection<String> ids, int maxConcurrency) {
+    	return getMealDetailsByIdsAsync(ids, maxConcurrency).join();
+    }
+    
+    public CompletableFuture<List<MealLookupResult>> getMealDetailsByIdsAsync(Collection<String> ids, int maxConcurrency) {
+    	if (ids == null) {
+    		throw new IllegalArgumentException("Meal IDs cannot be null");
+    	}
+    	if (maxConcurrency < 1) {
+    		throw new IllegalArgumentException("Concurrency limit must be at least 1");
+    	}
+    	
+    	// Deduplicate while keeping the input order
+    	Set<String> unique = new LinkedHashSet<>();
+    	for (String id : ids) {
+    		unique.add(id == null ? null : id.trim());
+    	}
+    	List<String> order = new ArrayList<>(unique);
+    	
+    	return new BulkLookup(order, this::lookupForBatch, maxConcurrency).start();
+    }
+    
+    
+//-------------------------------------Public Methods (Streaming)-------------------------------------
+/** Streaming versions of FUNCTION 1 and 2: every meal is handed to the consumer as soon as it is
+ *  parsed, so the caller can start working before the whole "meals" array has arrived.
+ *  The consumer runs on the calling thread. The full list is still cached afterwards.
+ *  They return the number of meals delivered.
+ */
+    
+// FUNCTION 10: Streaming search by Name
+    
+    public int streamMealsByName(String mealName, Consumer<? super MealLabInfo> consumer)
+           throws IOException, MealLabException {
+    	validateParameter(mealName, "Meal name");
+    	
+    	if (offlineCatalog != null) {
+    		return streamList(offlineCatalog.searchByName(mealName), consumer);
+    	}
+    	CacheKey key = requestKey(SEARCH_ENDPOINT, "s", mealName);
+    	String url = buildUrl(key);
+    	return streamRequest(key, url, consumer);
+    }
+    
+// FUNCTION 11: Streaming search by Ingredient
+    
+    public int streamMealsByIngredient(String ingredient, Consumer<? super MealLabInfo> consumer)
+           throws IOException, MealLabException {
+    	validateParameter(ingredient, "ingredient");
+    	
+    	if (offlineCatalog != null) {
+    		return streamList(offlineCatalog.searchByIngredient(ingredient), consumer);
+    	}
+    	CacheKey key = requestKey(FILTER_ENDPOINT, "i", ingredient);
+    	String url = buildUrl(key);
+    	return streamRequest(key, url, consumer);
+    }
+    
+    
+//-------------------------------------Public Methods (Catalog)---------------------------------------
+    
+// FUNCTION 12: All meals whose name starts with a letter. Endpoint search.php?f={letter}
+//              (used by MealCatalogCrawler to mirror the whole catalog)
+    
+    public List<MealLabInfo> searchMealsByFirstLetter(char letter)
+           throws IOException, MealLabException {
+    	
+    	if (!Character.isLetterOrDigit(letter)) {
+    		throw new IllegalArgumentException("First letter must be a letter or digit");
+    	}
+    	if (offlineCatalog != null) {
+    		return offlineCatalog.searchByFirstLetter(letter);
+    	}
+    	
+    	String value = String.valueOf(letter);
+    	CacheKey key = requestKey(SEARCH_ENDPOINT, "f", value);
+    	String url = buildUrl(key);
+    	return executeRequestForList(key, url);
+    }
+    
+// FUNCTION 13: Names of all ingredients TheMealDB knows. Endpoint list.php?i=list
+//              (not cached here, callers load it once, e.g. to fill the autocomplete)
+    
+    public List<String> listIngredients()
+           throws IOException, MealLabException {
+    	
+    	if (offlineCatalog != null) {
+    		return new ArrayList<>(new TreeSet<>(offlineCatalog.getIngredientIndex().getIngredients()));
+    	}
+    	
+    	String url = buildUrl(requestKey(LIST_ENDPOINT, "i", "list"));
+    	Request request = new Request.Builder().url(url).build();
+    	List<String> ingredients = new ArrayList<>();
+    	
+    	try (Response response = client.newCall(request).execute()) {
+    		validateResponse(response);
+    		
+    		JsonNode root = mapper.readTree(response.body().byteStream());
+    		for (JsonNode item : root.path("meals")) {                 // "meals": null gives no items
+    			String name = item.path("strIngredient").asText("").trim();
+    			if (!name.isEmpty()) {
+    				ingredients.add(name);
+    			}
+    		}
+    	}
+    	
+    	if (typeahead != null) {
+    		for (String name : ingredients) {
+    			typeahead.add(name, 1);
+    		}
+    	}
+    	return ingredients;
+    }
+    
+    // True when the service answers from a local catalog and never uses the network
+    public boolean isOffline() {
+    	return offlineCatalog != null;
+    }
+    
+    
+//-------------------------------------Public Methods (Asynchronous Streaming)-------------------------
+/** Non-blocking versions of FUNCTION 10 and 11 (e.g. for search-as-you-type): the consumer gets every
+ *  meal as soon as it is parsed, on the OkHttp dispatcher thread. The future completes with the number
+ *  of meals delivered. Cancelling it cancels the HTTP Call and stops the consumer.
+ *  A cache hit (or the offline catalog) streams on the calling thread and returns a completed future.
+ *  Every caller gets its own call here (a stream cannot be shared), so callers cancel the one they replace.
+ */
+    
+// FUNCTION 14: Asynchronous streaming search by Name
+    
+    public CompletableFuture<Integer> streamMealsByNameAsync(String mealName, Consumer<? super MealLabInfo> consumer) {
+    	validateParameter(mealName, "Meal name");
+    	
+    	if (offlineCatalog != null) {
+    		return CompletableFuture.completedFuture(streamList(offlineCatalog.searchByName(mealName), consumer));
+    	}
+    	CacheKey key = requestKey(SEARCH_ENDPOINT, "s", mealName);
+    	String url = buildUrl(key);
+    	return streamRequestAsync(key, url, consumer);
+    }
+    
+// FUNCTION 15: Asynchronous streaming search by Ingredient
+    
+    public CompletableFuture<Integer> streamMealsByIngredientAsync(String ingredient, Consumer<? super MealLabInfo> consumer) {
+    	validateParameter(ingredient, "ingredient");
+    	
+    	if (offlineCatalog != null) {
+    		return CompletableFuture.completedFuture(streamList(offlineCatalog.searchByIngredient(ingredient), consumer));
+    	}
+    	CacheKey key = requestKey(FILTER_ENDPOINT, "i", ingredient);
+    	String url = buildUrl(key);
+    	return streamRequestAsync(key, url, consumer);
+    }
+    
+
 //--------------------------------Private Methods (Helper Methods)-------------------------------------
         
-// Helper 1) Builds a safe URL with Encoding
+// Helper 1) One lookup of a bulk request. Never fails: errors are wrapped into the MealLookupResult.
+     
+     private CompletableFuture<MealLookupResult> lookupForBatch(String id) {
+    	 CompletableFuture<MealLabInfo> lookup;
+    	 try {
+    		 lookup = getMealDetailsByIdAsync(id);
+    	 } catch (IllegalArgumentException e) {
+    		 return CompletableFuture.completedFuture(new MealLookupResult(id, null, e));
+    	 }
+    	 return lookup.handle((meal, error) -> {
+    		 if (error == null) {
+    			 return new MealLookupResult(id, meal, null);
+    		 }
+    		 Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+    		 Exception exception = (cause instanceof Exception) ? (Exception) cause : new IOException(cause);
+    		 return new MealLookupResult(id, null, exception);
+    	 });
+       }
+     
+// Helper 2) Canonical form of a request and its safe URL (with Encoding).
+//           "  Chicken Breast", "chicken_breast" and "CHICKEN_BREAST" become filter.php?i=chicken_breast,
+//           so spelling variants share one cache entry, one disk cache entry and one in-flight call.
         
-     private String buildUrl(String endpoint, String paramName, String paramValue) {
-          String encodedValue = URLEncoder.encode(paramValue.trim(), StandardCharsets.UTF_8);
-          return apiUrl + apiKey + "/" + endpoint + "?" + paramName + "=" + encodedValue;
+     private CacheKey requestKey(String endpoint, String paramName, String paramValue) {
+    	  // The API writes ingredients with '_', the CacheKey trims, collapses whitespace and lower-cases
+    	  String value = FILTER_ENDPOINT.equals(endpoint)
+    			  ? TermNormalizer.normalizeIngredient(paramValue).replace(' ', '_')
+    			  : paramValue;
+    	  return new CacheKey(endpoint, paramName, value);
           }
      
-// Helper 2) Executes Request and gives a List (List<MealLabInfo>). Is used for Search & Filter
+     private String buildUrl(CacheKey key) {
+          String encodedValue = URLEncoder.encode(key.getParameter(), StandardCharsets.UTF_8);
+          return apiUrl + apiKey + "/" + key.getEndpoint() + "?" + key.getParameterName() + "=" + encodedValue;
+          }
+     
+// Helper 3) Executes Request and gives a List (List<MealLabInfo>). Is used for Search & Filter
+     
+     private List<MealLabInfo> executeRequestForList(CacheKey key, String url)
+             throws IOException, MealLabException {
+    	 
+    	 // The getMeals() returns a safe list (never null)
+    	 return executeRequest(key, url).getMeals();
+        }
+     
+// Helper 4) Executes Request and gives an Object (MealLabInfo). Is used for Lookup ID & Random
+     
+     private MealLabInfo executeRequestForSingleMeal(CacheKey key, String url)
+             throws IOException, MealLabException {
+    	 
+    	 // The getFirstMeal() returns an Object or null
+    	 return executeRequest(key, url).getFirstMeal();
+       }
+     
+// Helper 5) Answers from the cache when possible, otherwise executes the Request and caches the result.
+//           A null key means "never cache" (random.php). Concurrent callers for the same URL share
+//           one call: the first one (leader) sends it, the others wait for its result or its error.
      
-     private List<MealLabInfo> executeRequestForList(String url)
+     private MealResponse executeRequest(CacheKey key, String url)
              throws IOException, MealLabException {
     	 
+    	 MealResponse cached = lookupCache(key);
+    	 if (cached != null) {
+    		 return cached;
+    	 }
+    	 
     	 Request request = new Request.Builder().url(url).build();
+    	 if (key == null) {
+    		 try (Response response = client.newCall(request).execute()) {
+    			 return readMealResponse(response);
+    		     }
+    	 }
+    	 
+    	 Flight flight = inFlight.join(url);
+    	 if (!flight.claim()) {
+    		 return flight.await();         // Somebody else is already fetching this URL
+    	 }
+    	 
+    	 Call call = client.newCall(request);
+    	 flight.setCall(call);
     	 
     	 // try-with-resources: Shuts down the connection
-    	 try (Response response = client.newCall(request).execute()) {
-    		 validateResponse(response);
-    		 
-    		 String jsonString = response.body().string();
-    		 MealResponse mealResponse = mapper.readValue(jsonString, MealResponse.class);
-    		 
-    		 // The getMeals() returns a safe list (never null)
-    		 return mealResponse.getMeals();
+    	 try (Response response = call.execute()) {
+    		 MealResponse mealResponse = readMealResponse(response);
+    		 storeInCache(key, mealResponse);
+    		 flight.result.complete(mealResponse);
+    		 return mealResponse;
+    	     } catch (IOException | RuntimeException e) {
+    		 flight.result.completeExceptionally(e);
+    		 throw e;
     	     }
-        }
+       }
+     
+// Helper 6) Non-blocking version of executeRequest. Returns a future of the extracted result.
+//           Cancelling the future detaches this caller; the Call is cancelled once every waiter is gone.
+     
+     private <T> CompletableFuture<T> executeRequestAsync(CacheKey key, String url, Executor executor,
+             ResponseExtractor<T> extractor) {
+    	 
+    	 MealResponse cached = lookupCache(key);
+    	 if (cached != null) {
+    		 CompletableFuture<T> hit = new CompletableFuture<>();
+    		 try {
+    			 hit.complete(extractor.extract(cached));
+    		 } catch (IOException e) {
+    			 hit.completeExceptionally(e);
+    		 }
+    		 return hit;
+    	 }
+    	 
+    	 Flight flight = (key == null) ? InFlightRequests.solo() : inFlight.join(url);
+    	 if (flight.claim()) {
+    		 enqueueRequest(key, url, flight, executor);
+    	 }
+    	 
+    	 CompletableFuture<T> future = new CompletableFuture<>();
+    	 future.whenComplete((result, error) -> {
+    		 if (future.isCancelled()) {
+    			 flight.detach();
+    		 }
+    	 });
+    	 
+    	 BiConsumer<MealResponse, Throwable> handOff = (mealResponse, error) -> {
+    		 if (error != null) {
+    			 future.completeExceptionally(error);
+    			 return;
+    		 }
+    		 try {
+    			 future.complete(extractor.extract(mealResponse));
+    		 } catch (Exception e) {
+    			 future.completeExceptionally(e);
+    		 }
+    	 };
+    	 if (executor == null) {
+    		 flight.result.whenComplete(handOff);
+    	 } else {
+    		 flight.result.whenCompleteAsync(handOff, command -> execute(executor, command, future));
+    	 }
+    	 return future;
+       }
+     
+// Helper 7) Enqueues the Request of a flight (leader only) and completes the flight with the parsed response
+     
+     private void enqueueRequest(CacheKey key, String url, Flight flight, Executor executor) {
+    	 Request request = new Request.Builder().url(url).build();
+    	 Call call = client.newCall(request);
+    	 flight.setCall(call);
+    	 
+    	 call.enqueue(new Callback() {
+    		 @Override
+    		 public void onFailure(Call failedCall, IOException e) {
+    			 flight.result.completeExceptionally(e);
+    		 }
+    		 
+    		 @Override
+    		 public void onResponse(Call successfulCall, Response response) {
+    			 if (executor == null) {
+    				 completeFromResponse(key, flight, response);
+    				 return;
+    			 }
+    			 Runnable parse = () -> completeFromResponse(key, flight, response);
+    			 if (!execute(executor, parse, flight.result)) {
+    				 response.close();
+    			 }
+    		 }
+    	 });
+       }
+     
+// Helper 8) Parses the Response of an asynchronous call and completes the flight (closes the Response)
+     
+     private void completeFromResponse(CacheKey key, Flight flight, Response response) {
+    	 try (response) {
+    		 if (flight.result.isDone()) {
+    			 return;          // Abandoned while waiting, nothing to parse
+    		 }
+    		 MealResponse mealResponse = readMealResponse(response);
+    		 storeInCache(key, mealResponse);
+    		 flight.result.complete(mealResponse);
+    	 } catch (Exception e) {
+    		 flight.result.completeExceptionally(e);
+    	 }
+       }
+     
+// Helper 9) Runs a task on the caller's executor. If the executor refuses, the future fails instead of hanging.
+     
+     private static boolean execute(Executor executor, Runnable task, CompletableFuture<?> future) {
+    	 try {
+    		 executor.execute(task);
+    		 return true;
+    	 } catch (RejectedExecutionException e) {
+    		 future.completeExceptionally(e);
+    		 return false;
+    	 }
+       }
+     
+// Helper 10) Validates the Response and maps its body to a MealResponse
+     
+     private MealResponse readMealResponse(Response response)
+             throws IOException, MealLabException {
+    	 validateResponse(response);
+    	 
+    	 // Parse straight from the byte stream (no intermediate String copy of the whole body)
+    	 MealResponse mealResponse = mapper.readValue(response.body().byteStream(), MealResponse.class);
+    	 
+    	 feedTypeahead(mealResponse.getMeals());
+    	 
+    	 // Read-only list: the same response may be shared through the cache
+    	 return new MealResponse(Collections.unmodifiableList(mealResponse.getMeals()));
+       }
+     
+// Helper 11) Streaming: a ready list (offline or cached) is handed over directly,
+//            otherwise the "meals" array is read element by element and each meal passed to the consumer
      
-// Helper 3) Executes Request and gives an Object (MealLabInfo). Is used for Lookup ID & Random
+     private int streamList(List<MealLabInfo> meals, Consumer<? super MealLabInfo> consumer) {
+    	 if (consumer == null) {
+    		 throw new IllegalArgumentException("Consumer cannot be null");
+    	 }
+    	 meals.forEach(consumer);
+    	 return meals.size();
+       }
      
-     private MealLabInfo executeRequestForSingleMeal(String url)
+     private int streamRequest(CacheKey key, String url, Consumer<? super MealLabInfo> consumer)
              throws IOException, MealLabException {
+    	 MealResponse cached = lookupCache(key);
+    	 if (cached != null) {
+    		 return streamList(cached.getMeals(), consumer);
+    	 }
+    	 if (consumer == null) {
+    		 throw new IllegalArgumentException("Consumer cannot be null");
+    	 }
     	 
     	 Request request = new Request.Builder().url(url).build();
+    	 List<MealLabInfo> meals = new ArrayList<>();
     	 
     	 try (Response response = client.newCall(request).execute()) {
-    		 validateResponse(response);
-    		 
-    		 String jsonString = response.body().string();
-    		 MealResponse mealResponse = mapper.readValue(jsonString, MealResponse.class);
-    		 
-    		 // The getFirstMeal() returns an Object or null
-    		 return mealResponse.getFirstMeal();
+    		 readMealsArray(response, meals, consumer, () -> false);
     	     }
+    	 
+    	 feedTypeahead(meals);
+    	 storeInCache(key, new MealResponse(Collections.unmodifiableList(meals)));
+    	 return meals.size();
+       }
+     
+     // Non-blocking version: parses on the OkHttp dispatcher thread and stops reading as soon as the future
+     // is cancelled (the Call is cancelled too). Only a stream that was read to the end is cached.
+     private CompletableFuture<Integer> streamRequestAsync(CacheKey key, String url, Consumer<? super MealLabInfo> consumer) {
+    	 if (consumer == null) {
+    		 throw new IllegalArgumentException("Consumer cannot be null");
+    	 }
+    	 MealResponse cached = lookupCache(key);
+    	 if (cached != null) {
+    		 try {
+    			 return CompletableFuture.completedFuture(streamList(cached.getMeals(), consumer));
+    		 } catch (RuntimeException e) {
+    			 return CompletableFuture.failedFuture(e);
+    		 }
+    	 }
+    	 
+    	 Request request = new Request.Builder().url(url).build();
+    	 Call call = client.newCall(request);
+    	 CompletableFuture<Integer> future = new CompletableFuture<>();
+    	 future.whenComplete((count, error) -> {
+    		 if (future.isCancelled()) {
+    			 call.cancel();
+    		 }
+    	 });
+    	 
+    	 call.enqueue(new Callback() {
+    		 @Override
+    		 public void onFailure(Call failedCall, IOException e) {
+    			 future.completeExceptionally(e);
+    		 }
+    		 
+    		 @Override
+    		 public void onResponse(Call successfulCall, Response response) {
+    			 List<MealLabInfo> meals = new ArrayList<>();
+    			 try (response) {
+    				 readMealsArray(response, meals, consumer, future::isDone);
+    				 if (future.isDone()) {
+    					 return;          // Cancelled half way, the partial list is not a result
+    				 }
+    				 feedTypeahead(meals);
+    				 storeInCache(key, new MealResponse(Collections.unmodifiableList(meals)));
+    				 future.complete(meals.size());
+    			 } catch (Exception e) {
+    				 future.completeExceptionally(e);
+    			 }
+    		 }
+    	 });
+    	 return future;
+       }
+     
+     // Reads the "meals" array element by element into the list and the consumer, until the array ends or stop says so
+     private void readMealsArray(Response response, List<MealLabInfo> meals, Consumer<? super MealLabInfo> consumer,
+             BooleanSupplier stop) throws IOException, MealLabException {
+    	 validateResponse(response);
+    	 
+    	 try (JsonParser parser = mapper.getFactory().createParser(response.body().byteStream())) {
+    		 if (parser.nextToken() != JsonToken.START_OBJECT) {
+    			 throw new MealLabException("API returned malformed JSON", 0);
+    		 }
+    		 while (parser.nextToken() == JsonToken.FIELD_NAME) {
+    			 String field = parser.getCurrentName();
+    			 JsonToken value = parser.nextToken();
+    			 
+    			 if ("meals".equals(field) && value == JsonToken.START_ARRAY) {
+    				 while (!stop.getAsBoolean() && parser.nextToken() == JsonToken.START_OBJECT) {
+    					 MealLabInfo meal = mapper.readValue(parser, MealLabInfo.class);
+    					 meals.add(meal);
+    					 consumer.accept(meal);
+    				 }
+    				 if (stop.getAsBoolean()) {
+    					 return;
+    				 }
+    			 } else {
+    				 parser.skipChildren();      // "meals": null or an unknown field
+    			 }
+    		 }
+    	 }
+       }
+     
+// Helper 12) Cache access, both are no-ops without a cache or with a null key
+     
+     private MealResponse lookupCache(CacheKey key) {
+    	 return (cache == null || key == null) ? null : cache.get(key);
+       }
+     
+     private void storeInCache(CacheKey key, MealResponse mealResponse) {
+    	 if (cache != null && key != null) {
+    		 cache.put(key, mealResponse);
+    	 }
        }
      
-// Helper 4) Checks if the API answered correctly
+// Helper 13) Teaches the autocomplete the names of a network result (no-op without one)
+     
+     private void feedTypeahead(List<MealLabInfo> meals) {
+    	 if (typeahead != null && !meals.isEmpty()) {
+    		 typeahead.addMeals(meals);
+    	 }
+       }
+     
+// Helper 14) Checks if the API answered correctly
      
      private void validateResponse(Response response)
              throws MealLabException {
@@ -185,13 +912,132 @@ public class MealLabServices {
     	     }
          }
      
- // Helper 5) Checks that the entrance parameters are not empty
+ // Helper 15) Checks that the entrance parameters are not empty
      
      private void validateParameter(String param, String paramName) {
     	 if (param == null || param.trim().isEmpty()) {
     		 throw new IllegalArgumentException(paramName + " cannot be null or empty");
     	 }
      }
+     
+// Extracts the wanted result from a parsed MealResponse (allowed to throw e.g. MealLabException)
+     
+     @FunctionalInterface
+     private interface ResponseExtractor<T> {
+    	 T extract(MealResponse mealResponse) throws IOException;
+     }
+     
+//----------------------------------------------Builder----------------------------------------------
+/** Builder for a MealLabServices with optional features:
+ *  new MealLabServices.Builder(apiUrl, apiKey).cache(new InMemoryMealCache(...)).build()
+ */
+     
+     public static class Builder {
+    	 private final String apiUrl;
+    	 private final String apiKey;
+    	 private MealCache cache;
+    	 private int maxConcurrentLookups = 8;
+    	 private OkHttpClient client;
+    	 private int maxIdleConnections = 5;
+    	 private Duration keepAlive = Duration.ofMinutes(5);
+    	 private File diskCacheDirectory;
+    	 private long diskCacheMaxBytes;
+    	 private final Map<String, Duration> cacheMaxAge = new HashMap<>();
+    	 private Duration maxStaleOnError;
+    	 private MealCatalog offlineCatalog;
+    	 private TypeaheadIndex typeahead;
+    	 private double requestsPerSecond;
+    	 
+    	 public Builder(String apiUrl, String apiKey) {
+    		 this.apiUrl = apiUrl;
+    		 this.apiKey = apiKey;
+    	 }
+    	 
+    	 // Response cache for search, filter and lookup (random.php always bypasses it)
+    	 public Builder cache(MealCache cache) {
+    		 this.cache = cache;
+    		 return this;
+    	 }
+    	 
+    	 // How many requests a bulk lookup may run in parallel (default 8)
+    	 public Builder maxConcurrentLookups(int maxConcurrentLookups) {
+    		 if (maxConcurrentLookups < 1) {
+    			 throw new IllegalArgumentException("Concurrency limit must be at least 1");
+    		 }
+    		 this.maxConcurrentLookups = maxConcurrentLookups;
+    		 return this;
+    	 }
+    	 
+    	 // Use an existing OkHttpClient (shared pool). Pool options below are then ignored.
+    	 public Builder client(OkHttpClient client) {
+    		 this.client = client;
+    		 return this;
+    	 }
+    	 
+    	 // Idle connections kept warm and for how long (OkHttp default: 5 connections, 5 minutes)
+    	 public Builder connectionPool(int maxIdleConnections, Duration keepAlive) {
+    		 if (maxIdleConnections < 0 || keepAlive == null || keepAlive.isNegative() || keepAlive.isZero()) {
+    			 throw new IllegalArgumentException("Invalid connection pool settings");
+    		 }
+    		 this.maxIdleConnections = maxIdleConnections;
+    		 this.keepAlive = keepAlive;
+    		 return this;
+    	 }
+    	 
+    	 // HTTP response cache on disk, limited to maxSizeBytes (kept across restarts)
+    	 public Builder diskCache(File directory, long maxSizeBytes) {
+    		 if (directory == null || maxSizeBytes <= 0) {
+    			 throw new IllegalArgumentException("Disk cache needs a directory and a positive size");
+    		 }
+    		 this.diskCacheDirectory = directory;
+    		 this.diskCacheMaxBytes = maxSizeBytes;
+    		 return this;
+    	 }
+    	 
+    	 // Overrides the server's cache headers for one endpoint (disk cache only)
+    	 public Builder cacheMaxAge(String endpoint, Duration maxAge) {
+    		 if (endpoint == null || maxAge == null || maxAge.isNegative()) {
+    			 throw new IllegalArgumentException("Invalid max-age for endpoint " + endpoint);
+    		 }
+    		 this.cacheMaxAge.put(endpoint, maxAge);
+    		 return this;
+    	 }
+    	 
+    	 // On network errors or HTTP 5xx, answer from the disk cache even if expired up to maxStale
+    	 public Builder serveStaleOnError(Duration maxStale) {
+    		 if (maxStale == null || maxStale.isNegative()) {
+    			 throw new IllegalArgumentException("Max stale cannot be null or negative");
+    		 }
+    		 this.maxStaleOnError = maxStale;
+    		 return this;
+    	 }
+    	 
+    	 // Offline mode: all queries are answered from the catalog, nothing goes to the network
+    	 public Builder offlineCatalog(MealCatalog offlineCatalog) {
+    		 this.offlineCatalog = offlineCatalog;
+    		 return this;
+    	 }
+    	 
+    	 // Autocomplete that learns meal and ingredient names from every response (see also listIngredients())
+    	 public Builder typeahead(TypeaheadIndex typeahead) {
+    		 this.typeahead = typeahead;
+    		 return this;
+    	 }
+    	 
+    	 // Request budget: at most requestsPerSecond requests reach the network each second (callers wait
+    	 // for their slot). Answers from the response cache or the disk cache do not count.
+    	 public Builder rateLimit(double requestsPerSecond) {
+    		 if (!(requestsPerSecond > 0)) {
+    			 throw new IllegalArgumentException("Rate must be positive");
+    		 }
+    		 this.requestsPerSecond = requestsPerSecond;
+    		 return this;
+    	 }
+    	 
+    	 public MealLabServices build() {
+    		 return new MealLabServices(this);
+    	 }
+     }
         
   }
     
@@ -0,0 +1,41 @@
+package karanika.meallab.services;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simple request budget: spaces calls evenly so that no more than permitsPerSecond start each second.
+ * Callers that arrive too early sleep until their slot. Thread-safe.
+ */
+
+public final class RateLimiter {
+	
+	private final long intervalNanos;
+	private long nextFreeNanos = System.nanoTime();
+	
+	public RateLimiter(double permitsPerSecond) {
+		if (!(permitsPerSecond > 0)) {
+			throw new IllegalArgumentException("Rate must be positive");
+		}
+		this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+	}
+	
+	// Blocks until the caller may send one request
+	public void acquire() throws InterruptedIOException {
+		long waitNanos;
+		synchronized (this) {
+			long now = System.nanoTime();
+			long slot = Math.max(now, nextFreeNanos);
+			nextFreeNanos = slot + intervalNanos;
+			waitNanos = slot - now;
+		}
+		if (waitNanos > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(waitNanos);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for the rate limit");
+			}
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package karanika.meallab.services;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Application interceptor for the disk cache: when the network fails (IOException or HTTP 5xx),
+ * the request is retried against the cache only, accepting an entry up to maxStale past expiry.
+ * If nothing usable is cached, the original error is kept.
+ * A 5xx is closed before the retry (OkHttp allows no new request while a response is open);
+ * its body is kept in memory (up to MAX_ERROR_BODY bytes) in case it has to be returned.
+ */
+
+final class StaleOnErrorInterceptor implements Interceptor {
+	
+	static final long MAX_ERROR_BODY = 64 * 1024;
+	
+	private final long maxStaleSeconds;
+	
+	StaleOnErrorInterceptor(long maxStaleSeconds) {
+		this.maxStaleSeconds = maxStaleSeconds;
+	}
+	
+	@Override
+	public Response intercept(Chain chain) throws IOException {
+		Request request = chain.request();
+		Response response;
+		try {
+			response = chain.proceed(request);
+		} catch (IOException e) {
+			if (chain.call().isCanceled()) {
+				throw e;
+			}
+			Response stale = fromCache(chain, request);
+			if (stale == null) {
+				throw e;
+			}
+			return stale;
+		}
+		
+		if (response.code() < 500) {
+			return response;
+		}
+		ResponseBody errorBody = response.peekBody(MAX_ERROR_BODY);
+		response.close();
+		Response stale = fromCache(chain, request);
+		if (stale == null) {
+			return response.newBuilder().body(errorBody).build();
+		}
+		return stale;
+	}
+	
+	// Cache-only retry; OkHttp answers 504 when the cache has nothing usable
+	private Response fromCache(Chain chain, Request request) throws IOException {
+		Request cacheOnly = request.newBuilder()
+				.cacheControl(new CacheControl.Builder()
+						.onlyIfCached()
+						.maxStale((int) Math.min(Integer.MAX_VALUE, maxStaleSeconds), TimeUnit.SECONDS)
+						.build())
+				.build();
+		Response cached = chain.proceed(cacheOnly);
+		if (cached.code() == 504) {
+			cached.close();
+			return null;
+		}
+		return cached;
+	}
+}
@@ -0,0 +1,433 @@
+package karanika.meallab.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32;
+
+import karanika.meallab.exception.MealLabException;
+import karanika.meallab.model.MealLabInfo;
+
+/**
+ * Persistent, ordered set of meals (favorites, cooked history) stored as a snapshot plus an
+ * append-only journal of add/remove records:
+ *   {name}.snapshot : every meal at the last compaction (MealLabInfoCodec, written to a temp file, then renamed)
+ *   {name}.journal  : [int length][int CRC32][op + meal (MealLabInfoCodec) or id] per change since then
+ * A change costs one small append instead of rewriting the whole list. When the journal has more
+ * records than the list has meals (at least minCompactionRecords), it is folded into a new snapshot.
+ * On open the snapshot is read and the journal replayed; a torn or corrupt tail (crash mid-write)
+ * is cut off at the last intact record. Replaying after a crash during compaction is harmless,
+ * since every record is idempotent, and the journal is only cut once the renamed snapshot (and its
+ * directory entry) is on disk. A write that fails half way (e.g. disk full) is rolled back, so the
+ * records after it are not lost behind a torn one.
+ * With FsyncPolicy.PERIODIC a shared daemon timer forces unsynced records once per second, so an
+ * acknowledged change is on the device about one second later even when no further change follows.
+ */
+
+public final class MealJournal implements AutoCloseable {
+
+	// When appended records are forced to the storage device
+	public enum FsyncPolicy {
+		ALWAYS,       // Before add/remove returns (nothing acknowledged is lost, slowest)
+		PERIODIC,     // Within about a second (timer), and on compaction and close
+		NEVER         // Left to the operating system (close still forces)
+	}
+
+	private static final int SNAPSHOT_MAGIC = 0x4D4C534E;     // "MLSN"
+	private static final int VERSION = 2;                      // MealLabInfoCodec
+	private static final byte OP_ADD = 1;
+	private static final byte OP_REMOVE = 2;
+	private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+	private static final long PERIODIC_SYNC_MILLIS = 1000;
+	public static final int DEFAULT_MIN_COMPACTION_RECORDS = 1000;
+
+	private final Path snapshotFile;
+	private final Path journalFile;
+	private final FsyncPolicy fsyncPolicy;
+	private final int minCompactionRecords;
+	private final UnaryOperator<FileChannel> channelWrapper;
+
+	private final LinkedHashMap<String, MealLabInfo> meals = new LinkedHashMap<>();   // id -> meal, in insertion order
+	private FileChannel journal;
+	private int journalRecords;
+	private boolean unsynced;
+	private ScheduledFuture<?> periodicSync;                   // PERIODIC only
+	private IOException syncError;                             // From the timer, reported before the next change
+	private long tornFrom = -1;                                // Start of a failed write that could not be rolled back yet
+	private boolean closed;
+
+	private static ScheduledExecutorService syncTimer;          // Shared by all PERIODIC journals, created on first use
+
+//----------------------------------------Constructor-----------------------------------------
+
+	public static MealJournal open(File directory, String name, FsyncPolicy fsyncPolicy) throws IOException {
+		return open(directory, name, fsyncPolicy, DEFAULT_MIN_COMPACTION_RECORDS);
+	}
+
+	public static MealJournal open(File directory, String name, FsyncPolicy fsyncPolicy, int minCompactionRecords)
+			throws IOException {
+		return open(directory, name, fsyncPolicy, minCompactionRecords, UnaryOperator.identity());
+	}
+
+	// channelWrapper wraps the journal file channel, e.g. to count or fail writes in tests
+	public static MealJournal open(File directory, String name, FsyncPolicy fsyncPolicy, int minCompactionRecords,
+			UnaryOperator<FileChannel> channelWrapper) throws IOException {
+		if (name == null || name.trim().isEmpty()) {
+			throw new IllegalArgumentException("Journal name cannot be empty");
+		}
+		if (fsyncPolicy == null) {
+			throw new IllegalArgumentException("Fsync policy cannot be null");
+		}
+		if (minCompactionRecords < 1) {
+			throw new IllegalArgumentException("Compaction threshold must be at least 1");
+		}
+		if (channelWrapper == null) {
+			throw new IllegalArgumentException("Channel wrapper cannot be null");
+		}
+		Files.createDirectories(directory.toPath());
+		MealJournal mealJournal = new MealJournal(directory.toPath().toAbsolutePath(), name, fsyncPolicy, minCompactionRecords,
+				channelWrapper);
+		mealJournal.recover();
+		if (fsyncPolicy == FsyncPolicy.PERIODIC) {
+			mealJournal.periodicSync = syncTimer().scheduleWithFixedDelay(mealJournal::syncIfNeeded,
+					PERIODIC_SYNC_MILLIS, PERIODIC_SYNC_MILLIS, TimeUnit.MILLISECONDS);
+		}
+		return mealJournal;
+	}
+
+	private MealJournal(Path directory, String name, FsyncPolicy fsyncPolicy, int minCompactionRecords,
+			UnaryOperator<FileChannel> channelWrapper) {
+		this.snapshotFile = directory.resolve(name + ".snapshot");
+		this.journalFile = directory.resolve(name + ".journal");
+		this.fsyncPolicy = fsyncPolicy;
+		this.minCompactionRecords = minCompactionRecords;
+		this.channelWrapper = channelWrapper;
+	}
+
+	// True when a snapshot or a journal already exists (false = first run, e.g. import an older file format once)
+	public static boolean exists(File directory, String name) {
+		return new File(directory, name + ".snapshot").exists() || new File(directory, name + ".journal").exists();
+	}
+
+//------------------------------------------Changes---------------------------------------------
+
+	// Adds the meal; false (and nothing written) when a meal with that ID is already there
+	public synchronized boolean add(MealLabInfo meal) throws IOException {
+		if (meal == null || meal.getId() == null) {
+			throw new IllegalArgumentException("Meal and meal ID cannot be null");
+		}
+		ensureOpen();
+		if (meals.containsKey(meal.getId())) {
+			return false;
+		}
+		reportSyncError();
+		append(OP_ADD, meal, null);
+		meals.put(meal.getId(), meal);
+		afterAppend();
+		return true;
+	}
+
+	// Removes the meal with that ID; false when it is not there
+	public synchronized boolean remove(String id) throws IOException {
+		ensureOpen();
+		if (id == null || !meals.containsKey(id)) {
+			return false;
+		}
+		reportSyncError();
+		append(OP_REMOVE, null, id);
+		meals.remove(id);
+		afterAppend();
+		return true;
+	}
+
+	// Replaces the whole content with one snapshot (bulk import)
+	public synchronized void replaceAll(Collection<MealLabInfo> newMeals) throws IOException {
+		ensureOpen();
+		meals.clear();
+		for (MealLabInfo meal : newMeals) {
+			if (meal != null && meal.getId() != null) {
+				meals.putIfAbsent(meal.getId(), meal);
+			}
+		}
+		compact();
+	}
+
+	// Folds the journal into a new snapshot and empties the journal
+	public synchronized void compact() throws IOException {
+		ensureOpen();
+		Path temp = Files.createTempFile(snapshotFile.getParent(), snapshotFile.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				OutputStream channelOut = Channels.newOutputStream(channel);
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(channelOut));
+				out.writeInt(SNAPSHOT_MAGIC);
+				out.writeInt(VERSION);
+				MealLabInfoCodec.writeMeals(out, meals.values());
+				out.flush();
+				channel.force(true);                     // The snapshot must be on disk before the journal is cut
+			}
+			StorageFiles.moveAtomically(temp, snapshotFile);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		StorageFiles.forceDirectory(snapshotFile.getParent());    // The rename must be durable before the journal is cut
+		journal.truncate(0);
+		journal.force(true);
+		journalRecords = 0;
+		markSynced();
+	}
+
+//-------------------------------------------Queries--------------------------------------------
+
+	public synchronized boolean contains(String id) {
+		return id != null && meals.containsKey(id);
+	}
+
+	public synchronized List<MealLabInfo> getMeals() {             // A copy, in the order they were added
+		return new ArrayList<>(meals.values());
+	}
+
+	public synchronized int size() {
+		return meals.size();
+	}
+
+	public synchronized int getJournalRecordCount() {             // Records waiting for the next compaction
+		return journalRecords;
+	}
+
+	public synchronized boolean hasUnsyncedChanges() {            // Written, but not yet forced to the device
+		return unsynced;
+	}
+
+//-------------------------------------------Lifecycle------------------------------------------
+
+	// Forces outstanding records to disk and closes the journal file
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (periodicSync != null) {
+			periodicSync.cancel(false);
+		}
+		try {
+			if (unsynced) {
+				journal.force(false);
+			}
+		} finally {
+			journal.close();
+		}
+	}
+
+//---------------------------------------Private Methods----------------------------------------
+
+	// Loads the snapshot, replays the journal and cuts off a torn tail
+	private void recover() throws IOException {
+		if (Files.exists(snapshotFile)) {
+			try (InputStream fileIn = Files.newInputStream(snapshotFile);
+				 DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn))) {
+				if (in.readInt() != SNAPSHOT_MAGIC) {
+					throw new MealLabException("Not a meal journal snapshot: " + snapshotFile, 0);
+				}
+				int version = in.readInt();
+				if (version != VERSION) {
+					throw new MealLabException("Unsupported snapshot version " + version, 0);
+				}
+				for (MealLabInfo meal : MealLabInfoCodec.readMeals(in)) {
+					meals.put(meal.getId(), meal);
+				}
+			}
+		}
+
+		journal = channelWrapper.apply(
+				FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+		try {
+			long validLength = 0;
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile)))) {
+				while (true) {
+					byte[] payload = readRecord(in);
+					if (payload == null) {
+						break;
+					}
+					apply(payload);                        // An intact record the codec rejects fails the open
+					validLength += 8 + payload.length;
+					journalRecords++;
+				}
+			}
+			if (journal.size() > validLength) {
+				journal.truncate(validLength);             // Torn or corrupt tail from a crash
+				journal.force(false);
+			}
+			journal.position(validLength);
+		} catch (IOException | RuntimeException e) {
+			try {
+				journal.close();
+			} catch (IOException closeError) {
+				e.addSuppressed(closeError);
+			}
+			throw e;
+		}
+	}
+
+	// One record, or null at the end of the file or at the first damaged record
+	private static byte[] readRecord(DataInputStream in) throws IOException {
+		try {
+			int length = in.readInt();
+			int crc = in.readInt();
+			if (length <= 0 || length > MAX_RECORD_BYTES) {
+				return null;
+			}
+			byte[] payload = new byte[length];
+			in.readFully(payload);
+			return checksum(payload) == crc ? payload : null;
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+
+	private void apply(byte[] payload) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		byte op = in.readByte();
+		if (op == OP_ADD) {
+			for (MealLabInfo meal : MealLabInfoCodec.readMeals(in)) {
+				meals.put(meal.getId(), meal);
+			}
+		} else if (op == OP_REMOVE) {
+			meals.remove(in.readUTF());
+		}
+	}
+
+	private void append(byte op, MealLabInfo meal, String id) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0);                                // Header placeholders: length, CRC
+		out.writeInt(0);
+		out.writeByte(op);
+		if (op == OP_ADD) {
+			MealLabInfoCodec.writeMeals(out, List.of(meal));
+		} else {
+			out.writeUTF(id);
+		}
+
+		byte[] record = bytes.toByteArray();
+		int length = record.length - 8;
+		ByteBuffer buffer = ByteBuffer.wrap(record);
+		buffer.putInt(0, length);
+		buffer.putInt(4, checksum(record, 8, length));
+
+		if (tornFrom >= 0) {
+			rollBack(tornFrom);
+			tornFrom = -1;
+		}
+		long start = journal.position();
+		try {
+			while (buffer.hasRemaining()) {
+				journal.write(buffer);
+			}
+		} catch (IOException e) {
+			// Part of the record may be in the file; it is cut off again so later records follow intact ones
+			try {
+				rollBack(start);
+			} catch (IOException rollBackError) {
+				tornFrom = start;                       // Tried again before the next append
+				e.addSuppressed(rollBackError);
+			}
+			throw e;
+		}
+		journalRecords++;
+		unsynced = true;
+	}
+
+	private void rollBack(long length) throws IOException {
+		journal.truncate(length);
+		journal.position(length);
+	}
+
+	// A failed timer sync is reported before the next change is written, so an exception always means
+	// that change did not happen (the records already written are forced again by the next sync)
+	private void reportSyncError() throws IOException {
+		if (syncError != null) {
+			IOException error = syncError;
+			syncError = null;
+			throw error;
+		}
+	}
+
+	private void afterAppend() throws IOException {
+		if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+			journal.force(false);
+			markSynced();
+		}
+		if (journalRecords >= Math.max(minCompactionRecords, meals.size())) {
+			compact();
+		}
+	}
+
+	private void markSynced() {
+		unsynced = false;
+	}
+
+	// Timer task of PERIODIC journals; a failure is kept (and retried next time) instead of killing the task
+	private synchronized void syncIfNeeded() {
+		if (closed || !unsynced) {
+			return;
+		}
+		try {
+			journal.force(false);
+			markSynced();
+		} catch (IOException e) {
+			syncError = e;
+		}
+	}
+
+	private static synchronized ScheduledExecutorService syncTimer() {
+		if (syncTimer == null) {
+			syncTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "meal-journal-sync");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return syncTimer;
+	}
+
+	private void ensureOpen() {
+		if (closed) {
+			throw new IllegalStateException("Journal is closed");
+		}
+	}
+
+	private static int checksum(byte[] data) {
+		return checksum(data, 0, data.length);
+	}
+
+	private static int checksum(byte[] data, int offset, int length) {
+		CRC32 crc = new CRC32();
+		crc.update(data, offset, length);
+		return (int) crc.getValue();
+	}
+}
@@ -0,0 +1,331 @@
+package karanika.meallab.storage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import karanika.meallab.exception.MealLabException;
+import karanika.meallab.model.MealLabInfo;
+
+/**
+ * Storage format for lists of meals (offline catalog, journal snapshots and records). Every stored field
+ * round-trips, and derived values (formatted ingredients, counts, validity) are never written.
+ *
+ * Format (version 2): [int block length] then the block: [byte version][varint count] and per meal
+ *   id, name, instructions           : text
+ *   category, area                   : shared
+ *   thumbnail                        : shared folder + text file name
+ *   [varint n] n x (ingredient, measure) : shared
+ * text   = varint (UTF-8 length + 1), 0 = null, then the bytes
+ * shared = varint 0 = null, 1 = new string (text follows, gets the next dictionary number),
+ *          k >= 2 = dictionary entry k - 2
+ * The dictionary is built while writing and rebuilt while reading, so "Beef", "Italian" or "1 tsp"
+ * are stored once per file and are the same String instance in memory after loading.
+ *
+ * readLegacyJson reads the favorites.json / cooked.json files written by older versions
+ * (Jackson bean dumps with "ingredients" / "measures" arrays and derived fields).
+ */
+
+public final class MealLabInfoCodec {
+
+	public static final int FORMAT_VERSION = 2;
+	public static final int MAX_BLOCK_BYTES = 256 * 1024 * 1024;      // A damaged length never allocates more
+
+	private static final JsonFactory JSON = new JsonFactory();
+
+	private MealLabInfoCodec() {
+	}
+
+//-------------------------------------------Writing--------------------------------------------
+
+	// The meals are encoded into memory first and written as one block: [int length][block]
+	public static void writeMeals(DataOutput out, Collection<MealLabInfo> meals) throws IOException {
+		Output block = new Output(64 + meals.size() * 256);
+		Map<String, Integer> dictionary = new HashMap<>();
+		block.writeByte(FORMAT_VERSION);
+		block.writeVarInt(meals.size());
+
+		for (MealLabInfo meal : meals) {
+			block.writeText(meal.getId());
+			block.writeText(meal.getName());
+			block.writeText(meal.getInstructions());
+			block.writeShared(meal.getCategory(), dictionary);
+			block.writeShared(meal.getArea(), dictionary);
+
+			String thumbnail = meal.getThumbnail();
+			int slash = thumbnail == null ? -1 : thumbnail.lastIndexOf('/');
+			block.writeShared(thumbnail == null ? null : thumbnail.substring(0, slash + 1), dictionary);
+			block.writeText(thumbnail == null ? null : thumbnail.substring(slash + 1));
+
+			int ingredientCount = meal.getIngredientsCount();
+			block.writeVarInt(ingredientCount);
+			for (int i = 0; i < ingredientCount; i++) {
+				block.writeShared(meal.ingredientAt(i), dictionary);
+				block.writeShared(meal.measureAt(i), dictionary);
+			}
+		}
+		out.writeInt(block.size);
+		out.write(block.bytes, 0, block.size);
+	}
+
+//-------------------------------------------Reading--------------------------------------------
+
+	// Reads the whole block with one readFully and decodes it from the byte array.
+	// Damaged data (lengths or counts that cannot be right) fails with MealLabException.
+	public static List<MealLabInfo> readMeals(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > MAX_BLOCK_BYTES) {
+			throw new MealLabException("Corrupt meal data: block length " + length, 0);
+		}
+		byte[] data = new byte[length];
+		in.readFully(data);
+		Input block = new Input(data);
+
+		int version = block.readByte();
+		if (version != FORMAT_VERSION) {
+			throw new MealLabException("Unsupported meal format version " + version, 0);
+		}
+		List<String> dictionary = new ArrayList<>();
+		int count = block.readCount("meal");
+		List<MealLabInfo> meals = new ArrayList<>(count);
+
+		for (int m = 0; m < count; m++) {
+			String id = block.readText();
+			String name = block.readText();
+			String instructions = block.readText();
+			String category = block.readShared(dictionary);
+			String area = block.readShared(dictionary);
+			String folder = block.readShared(dictionary);
+			String file = block.readText();
+			String thumbnail = folder == null ? null : folder + file;
+
+			int ingredientCount = block.readCount("ingredient");
+			String[] ingredients = new String[ingredientCount];
+			String[] measures = new String[ingredientCount];
+			for (int i = 0; i < ingredientCount; i++) {
+				ingredients[i] = block.readShared(dictionary);
+				measures[i] = block.readShared(dictionary);
+			}
+			meals.add(new MealLabInfo(id, name, category, instructions, area, thumbnail, ingredients, measures));
+		}
+		return meals;
+	}
+
+	// Reads a JSON array of meals as older versions saved them with ObjectMapper.writeValue
+	// (API field names like "idMeal" are accepted as well). Derived fields are skipped.
+	public static List<MealLabInfo> readLegacyJson(File file) throws IOException {
+		try (InputStream in = Files.newInputStream(file.toPath());
+			 JsonParser parser = JSON.createParser(in)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				throw new MealLabException("Expected a JSON array of meals: " + file, 0);
+			}
+			List<MealLabInfo> meals = new ArrayList<>();
+			while (parser.nextToken() == JsonToken.START_OBJECT) {
+				meals.add(readLegacyMeal(parser));
+			}
+			return meals;
+		}
+	}
+
+//---------------------------------------Private Methods----------------------------------------
+
+	private static MealLabInfo readLegacyMeal(JsonParser parser) throws IOException {
+		String id = null, name = null, category = null, instructions = null, area = null, thumbnail = null;
+		List<String> ingredients = new ArrayList<>();
+		List<String> measures = new ArrayList<>();
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.currentName();
+			JsonToken value = parser.nextToken();
+			switch (field) {
+				case "id": case "idMeal":                  id = textOf(parser, value); break;
+				case "name": case "strMeal":               name = textOf(parser, value); break;
+				case "category": case "strCategory":       category = textOf(parser, value); break;
+				case "instructions": case "strInstructions": instructions = textOf(parser, value); break;
+				case "area": case "strArea":               area = textOf(parser, value); break;
+				case "thumbnail": case "strMealThumb":     thumbnail = textOf(parser, value); break;
+				case "ingredients":                        readStrings(parser, value, ingredients); break;
+				case "measures":                           readStrings(parser, value, measures); break;
+				default:
+					parser.skipChildren();                 // formattedIngredients, ingredientsCount, valid, ...
+			}
+		}
+
+		// Old files could have fewer measures than ingredients: pad with "" to keep them paired
+		String[] measureArray = new String[ingredients.size()];
+		for (int i = 0; i < measureArray.length; i++) {
+			measureArray[i] = i < measures.size() ? measures.get(i) : "";
+		}
+		return new MealLabInfo(id, name, category, instructions, area, thumbnail,
+				ingredients.toArray(new String[0]), measureArray);
+	}
+
+	private static String textOf(JsonParser parser, JsonToken value) throws IOException {
+		if (value == JsonToken.VALUE_NULL) {
+			return null;
+		}
+		if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+			parser.skipChildren();
+			return null;
+		}
+		return parser.getText();
+	}
+
+	private static void readStrings(JsonParser parser, JsonToken value, List<String> target) throws IOException {
+		if (value != JsonToken.START_ARRAY) {
+			parser.skipChildren();
+			return;
+		}
+		for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+			String text = textOf(parser, token);
+			if (text != null && !text.trim().isEmpty()) {
+				target.add(text.trim());
+			}
+		}
+	}
+
+//----------------------------------------Block Buffers-----------------------------------------
+
+	// Growable byte array with the encoding primitives (no per-byte stream calls)
+	private static final class Output {
+		byte[] bytes;
+		int size;
+
+		Output(int capacity) {
+			bytes = new byte[capacity];
+		}
+
+		void writeByte(int value) {
+			ensure(1);
+			bytes[size++] = (byte) value;
+		}
+
+		// 7 bits per byte, the high bit marks "more bytes follow"
+		void writeVarInt(int value) {
+			ensure(5);
+			while ((value & ~0x7F) != 0) {
+				bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		void writeText(String value) {
+			if (value == null) {
+				writeVarInt(0);
+				return;
+			}
+			byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(utf8.length + 1);
+			ensure(utf8.length);
+			System.arraycopy(utf8, 0, bytes, size, utf8.length);
+			size += utf8.length;
+		}
+
+		void writeShared(String value, Map<String, Integer> dictionary) {
+			if (value == null) {
+				writeVarInt(0);
+				return;
+			}
+			Integer index = dictionary.get(value);
+			if (index != null) {
+				writeVarInt(index + 2);
+				return;
+			}
+			dictionary.put(value, dictionary.size());
+			writeVarInt(1);
+			writeText(value);
+		}
+
+		private void ensure(int extra) {
+			if (size + extra > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+			}
+		}
+	}
+
+	private static final class Input {
+		final byte[] bytes;
+		int position;
+
+		Input(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		int readByte() throws MealLabException {
+			if (position >= bytes.length) {
+				throw truncated();
+			}
+			return bytes[position++] & 0xFF;
+		}
+
+		int readVarInt() throws MealLabException {
+			int value = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				int b = readByte();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new MealLabException("Corrupt meal data: varint too long", 0);
+		}
+
+		// A count of items that each take at least one byte: never negative or more than the bytes left
+		int readCount(String item) throws MealLabException {
+			int count = readVarInt();
+			if (count < 0 || count > bytes.length - position) {
+				throw new MealLabException("Corrupt meal data: " + item + " count " + count, 0);
+			}
+			return count;
+		}
+
+		String readText() throws MealLabException {
+			int length = readVarInt() - 1;
+			if (length < 0) {
+				return null;
+			}
+			if (length > bytes.length - position) {
+				throw truncated();
+			}
+			String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+			position += length;
+			return value;
+		}
+
+		String readShared(List<String> dictionary) throws MealLabException {
+			int code = readVarInt();
+			if (code == 0) {
+				return null;
+			}
+			if (code == 1) {
+				String value = readText();
+				dictionary.add(value);
+				return value;
+			}
+			int index = code - 2;
+			if (index < 0 || index >= dictionary.size()) {
+				throw new MealLabException("Corrupt meal data: unknown dictionary entry " + index, 0);
+			}
+			return dictionary.get(index);
+		}
+
+		private static MealLabException truncated() {
+			return new MealLabException("Corrupt meal data: block ends early", 0);
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package karanika.meallab.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// File steps shared by the catalog file, the journal snapshots and the thumbnail cache:
+// everything is written to a temp file first and then renamed, so a crash never leaves half a file.
+
+public final class StorageFiles {
+	
+	private StorageFiles() {
+	}
+	
+	// Replaces target with the finished temp file in one step (plain replace where the file system can't)
+	public static void moveAtomically(Path temp, Path target) throws IOException {
+		try {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
+	// Forces the directory entry (e.g. of a rename) to disk. Platforms that cannot open a directory
+	// (Windows) refuse this; there the rename is as durable as the file system makes it.
+	public static void forceDirectory(Path directory) throws IOException {
+		FileChannel channel;
+		try {
+			channel = FileChannel.open(directory, StandardOpenOption.READ);
+		} catch (IOException e) {
+			return;                                   // Not supported here
+		}
+		try (channel) {
+			channel.force(true);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import karanika.meallab.index.FullTextIndex;
+import karanika.meallab.model.MealLabInfo;
+
+// Unit tests for the BM25 full-text index (stemming, field weights, top-k), plus a timing run
+// that is left out of the normal test run (mvn test -Pbenchmark)
+class FullTextIndexTest {
+	
+	private static MealLabInfo meal(String id, String name, String area, String instructions, String... ingredients) {
+		String[] measures = new String[ingredients.length];
+		Arrays.fill(measures, "");
+		return new MealLabInfo(id, name, "Main", instructions, area, "Thumb", ingredients, measures);
+	}
+	
+	private static List<String> ids(List<MealLabInfo> meals) {
+		List<String> ids = new ArrayList<>();
+		meals.forEach(m -> ids.add(m.getId()));
+		return ids;
+	}
+	
+	private final FullTextIndex index = new FullTextIndex(Arrays.asList(
+			meal("1", "Tomato Soup", "British", "Simmer the tomatoes with onions for 20 minutes.", "Tomato", "Onion"),
+			meal("2", "Beef Stew", "British", "Brown the beef, add a tomato and simmer slowly.", "Beef", "Carrots"),
+			meal("3", "Pancakes", "American", "Whisk flour, eggs and milk. Fry in butter.", "Flour", "Eggs", "Milk"),
+			meal("4", "Shakshuka", "Tunisian", "Cook peppers, then crack the eggs into the tomato sauce.", "Eggs", "Tomatoes")));
+
+//---------------------------------------Test 1: Ranking and stemming-------------------------------------------
+
+	@Test
+	void testRanking() {
+		System.out.println("Test 1: BM25 ranking");
+		
+		// "tomatoes" and "tomato" share a stem; the name match ranks first
+		List<String> tomato = ids(index.search("Tomatoes", 10));
+		assertEquals("1", tomato.get(0));
+		assertTrue(tomato.containsAll(Arrays.asList("2", "4")));
+		assertFalse(tomato.contains("3"));
+		
+		// Instructions and area are searchable, stop words are ignored
+		assertEquals(Arrays.asList("3"), ids(index.search("whisk the flour", 10)));
+		assertEquals(Arrays.asList("4"), ids(index.search("tunisian", 10)));
+		
+		// Top-k keeps only the best ones, unknown terms match nothing
+		assertEquals(1, index.search("tomato eggs", 1).size());
+		assertTrue(index.search("sushi", 10).isEmpty());
+		
+		System.out.println(" -> Success!");
+	}
+
+//---------------------------------------Benchmark: Large catalog---------------------------------------------
+
+	@Test
+	@Tag("benchmark")
+	void benchmarkLargeCatalog() {
+		System.out.println("\nBenchmark: 20.000 meals");
+		
+		String[] words = { "chicken", "garlic", "lemon", "rice", "bake", "simmer", "butter", "pepper", "onion", "cream" };
+		List<MealLabInfo> meals = new ArrayList<>();
+		for (int i = 0; i < 20_000; i++) {
+			StringBuilder text = new StringBuilder();
+			for (int w = 0; w < 40; w++) {
+				text.append(words[(i * 7 + w * 3) % words.length]).append(' ');
+			}
+			meals.add(meal(String.valueOf(i), "Meal " + words[i % words.length], "Area", text.toString(), words[(i + 1) % words.length]));
+		}
+		FullTextIndex big = new FullTextIndex(meals);
+		
+		for (int i = 0; i < 20; i++) {                            // Warm up
+			big.search("garlic chicken", 10);
+		}
+		long start = System.nanoTime();
+		int rounds = 50;
+		for (int i = 0; i < rounds; i++) {
+			assertEquals(10, big.search("garlic chicken lemon", 10).size());
+		}
+		double millis = (System.nanoTime() - start) / 1_000_000.0 / rounds;
+		
+		System.out.printf(" -> %.2f ms per query%n", millis);
+	}
+}
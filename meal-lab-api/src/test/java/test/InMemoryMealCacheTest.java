@@ -0,0 +1,167 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import karanika.meallab.cache.CacheKey;
+import karanika.meallab.cache.CacheStats;
+import karanika.meallab.cache.InMemoryMealCache;
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.model.MealResponse;
+
+// Unit tests for the in-memory response cache (TTL, weight bound, frequency-aware eviction, counters)
+class InMemoryMealCacheTest {
+	
+	// Builds a response holding the given number of meals
+	private static MealResponse responseWith(int meals) {
+		List<MealLabInfo> list = new ArrayList<>();
+		for (int i = 0; i < meals; i++) {
+			list.add(new MealLabInfo(String.valueOf(i), "Meal " + i, "Cat", "Instr", "Area", "Thumb"));
+		}
+		return new MealResponse(list);
+	}
+
+//----------------------------------Test 1: Hits, misses and key normalization-----------------------------
+
+	@Test
+	void testHitMissAndNormalizedKeys() {
+		System.out.println("Test 1: Hits & Misses");
+		
+		InMemoryMealCache cache = new InMemoryMealCache(100, Duration.ofMinutes(5));
+		MealResponse response = responseWith(1);
+		
+		assertNull(cache.get(new CacheKey("search.php", "Arrabiata")));
+		cache.put(new CacheKey("search.php", "Arrabiata"), response);
+		
+		// Same term, different case and spaces
+		assertSame(response, cache.get(new CacheKey("search.php", "  ARRABIATA ")));
+		// Same term, other endpoint
+		assertNull(cache.get(new CacheKey("filter.php", "Arrabiata")));
+		
+		CacheStats stats = cache.stats();
+		assertEquals(1, stats.getHitCount());
+		assertEquals(2, stats.getMissCount());
+		
+		System.out.println(" -> " + stats);
+	}
+
+//------------------------------------Test 2: Per-endpoint time to live------------------------------------
+
+	@Test
+	void testPerEndpointTimeToLive() throws InterruptedException {
+		System.out.println("\nTest 2: Per-endpoint TTL");
+		
+		InMemoryMealCache cache = new InMemoryMealCache(100, Duration.ofMinutes(5));
+		cache.setTimeToLive("search.php", Duration.ofMillis(20));
+		
+		cache.put(new CacheKey("search.php", "a"), responseWith(1));
+		cache.put(new CacheKey("lookup.php", "52772"), responseWith(1));
+		Thread.sleep(60);
+		
+		assertNull(cache.get(new CacheKey("search.php", "a")), "Short TTL entry should have expired");
+		assertNotNull(cache.get(new CacheKey("lookup.php", "52772")), "Default TTL entry should still be there");
+		assertEquals(1, cache.stats().getEvictionCount());
+		
+		System.out.println(" -> Expired entries are dropped: " + cache.stats());
+	}
+
+//-------------------------------Test 3: Weight bound with frequency-aware eviction------------------------
+
+	@Test
+	void testFrequencyAwareEviction() {
+		System.out.println("\nTest 3: Weight bound & TinyLFU eviction");
+		
+		// Room for 3 single-meal responses (weight 2 each)
+		InMemoryMealCache cache = new InMemoryMealCache(6, Duration.ofMinutes(5));
+		CacheKey popular = new CacheKey("lookup.php", "1");
+		
+		cache.put(popular, responseWith(1));
+		for (int i = 0; i < 5; i++) {
+			cache.get(popular);                       // Make it popular
+		}
+		cache.put(new CacheKey("lookup.php", "2"), responseWith(1));
+		cache.put(new CacheKey("lookup.php", "3"), responseWith(1));
+		
+		// A burst of one-off lookups must not push out the popular entry
+		for (int i = 100; i < 120; i++) {
+			CacheKey oneOff = new CacheKey("lookup.php", String.valueOf(i));
+			cache.get(oneOff);
+			cache.put(oneOff, responseWith(1));
+		}
+		
+		assertNotNull(cache.get(popular), "Popular entry should survive");
+		assertTrue(cache.size() <= 3, "Weight bound should hold");
+		
+		// An entry heavier than the whole cache is never stored
+		cache.put(new CacheKey("search.php", "letter"), responseWith(10));
+		assertNull(cache.get(new CacheKey("search.php", "letter")));
+		
+		System.out.println(" -> Size: " + cache.size() + ", " + cache.stats());
+	}
+
+//-------------------------------------Test 4: Short TTL for empty results-----------------------------------
+
+	@Test
+	void testNegativeTimeToLive() throws InterruptedException {
+		System.out.println("\nTest 4: Negative caching");
+		
+		InMemoryMealCache cache = new InMemoryMealCache(100, Duration.ofMinutes(5));
+		cache.setNegativeTimeToLive(Duration.ofMillis(20));
+		
+		cache.put(new CacheKey("search.php", "xyz"), new MealResponse(null));
+		cache.put(new CacheKey("search.php", "a"), responseWith(1));
+		assertNotNull(cache.get(new CacheKey("search.php", "XYZ")), "An empty result is cached as well");
+		Thread.sleep(60);
+		
+		assertNull(cache.get(new CacheKey("search.php", "xyz")), "Empty result should have expired");
+		assertNotNull(cache.get(new CacheKey("search.php", "a")), "Non-empty result keeps the normal TTL");
+		
+		System.out.println(" -> " + cache.stats());
+	}
+
+//------------------------------Test 5: A rejected entry evicts nothing-------------------------------------
+
+	@Test
+	void testRejectedCandidateEvictsNothing() {
+		System.out.println("\nTest 5: Admission is decided before eviction");
+		
+		InMemoryMealCache cache = new InMemoryMealCache(6, Duration.ofMinutes(5));
+		CacheKey rare = new CacheKey("lookup.php", "1");
+		CacheKey popular = new CacheKey("lookup.php", "2");
+		cache.put(rare, responseWith(1));
+		cache.put(popular, responseWith(1));
+		for (int i = 0; i < 5; i++) {
+			cache.get(popular);
+		}
+		
+		// The candidate needs both entries' room: the rare one could go, the popular one not
+		CacheKey candidate = new CacheKey("search.php", "c");
+		cache.get(candidate);
+		cache.put(candidate, responseWith(5));
+		assertEquals(2, cache.size(), "A rejected candidate must not evict the rare entry");
+		assertEquals(0, cache.stats().getEvictionCount());
+		
+		// A rejected refresh keeps the entry that is already cached for the key
+		MealResponse cached = cache.get(rare);
+		cache.put(rare, responseWith(4));
+		assertSame(cached, cache.get(rare));
+		assertNotNull(cache.get(popular));
+		
+		// An admitted candidate evicts only what it needs
+		CacheKey frequent = new CacheKey("search.php", "f");
+		for (int i = 0; i < 10; i++) {
+			cache.get(frequent);
+		}
+		cache.put(frequent, responseWith(3));
+		assertNotNull(cache.get(frequent));
+		assertNotNull(cache.get(popular), "Only the least recently used entry makes room");
+		assertEquals(1, cache.stats().getEvictionCount());
+		
+		System.out.println(" -> " + cache.stats());
+	}
+}
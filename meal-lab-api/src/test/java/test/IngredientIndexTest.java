@@ -0,0 +1,80 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import karanika.meallab.index.IngredientIndex;
+import karanika.meallab.model.MealLabInfo;
+
+// Unit tests for the bitmap-based ingredient index (AND / OR / NOT queries)
+class IngredientIndexTest {
+	
+	private IngredientIndex index;
+	
+	private static MealLabInfo meal(String id, String... ingredients) {
+		String[] measures = new String[ingredients.length];
+		Arrays.fill(measures, "");
+		return new MealLabInfo(id, "Meal " + id, "Cat", "Instr", "Area", "Thumb", ingredients, measures);
+	}
+	
+	private static Set<String> set(String... values) {
+		return new HashSet<>(Arrays.asList(values));
+	}
+	
+	private static List<String> ids(List<MealLabInfo> meals) {
+		List<String> ids = new ArrayList<>();
+		meals.forEach(m -> ids.add(m.getId()));
+		return ids;
+	}
+	
+	@BeforeEach
+	void setUp() {
+		index = new IngredientIndex(Arrays.asList(
+				meal("1", "Chicken", "Garlic", "Lemon"),
+				meal("2", "Chicken Breast", "Garlic"),
+				meal("3", "chicken", "GARLIC ", "Rice"),
+				meal("4", "Beef", "Garlic"),
+				meal("5", "Lemon", "Sugar")));
+	}
+
+//-----------------------------------------Test 1: AND and NOT-------------------------------------------------
+
+	@Test
+	void testAllAndNone() {
+		System.out.println("Test 1: chicken AND garlic AND NOT lemon");
+		
+		assertEquals(Arrays.asList("1", "3"), ids(index.findMealsByIngredients(set("Chicken", "garlic"), null)));
+		assertEquals(Arrays.asList("3"), ids(index.findMealsByIngredients(set("chicken", "garlic"), set("lemon"))));
+		
+		// Normalization: '_' and case
+		assertEquals(Arrays.asList("2"), ids(index.findMealsByIngredients(set("chicken_breast"), Collections.emptySet())));
+		
+		// Unknown ingredient in "all" matches nothing, in "none" excludes nothing
+		assertTrue(index.findMealsByIngredients(set("chicken", "truffle"), null).isEmpty());
+		assertEquals(5, index.findMealsByIngredients(null, set("truffle")).size());
+		
+		System.out.println(" -> Success!");
+	}
+
+//-------------------------------------------Test 2: OR and counts---------------------------------------------
+
+	@Test
+	void testAnyAndCounts() {
+		System.out.println("\nTest 2: beef OR sugar, counts");
+		
+		assertEquals(Arrays.asList("4", "5"), ids(index.findMealsByAnyIngredient(set("beef", "sugar"))));
+		assertEquals(4, index.countMealsWith("Garlic"));
+		assertTrue(index.getIngredients().contains("chicken breast"));
+		
+		System.out.println(" -> Known ingredients: " + index.getIngredients().size());
+	}
+}
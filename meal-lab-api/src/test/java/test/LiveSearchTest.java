@@ -0,0 +1,111 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.services.LiveSearch;
+import karanika.meallab.services.MealLabServices;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+
+// Tests for LiveSearch: search-as-you-type answers refinements locally and only sends the requests it needs
+class LiveSearchTest {
+
+	private MockWebServer server;
+	private MealLabServices service;
+
+	static final String CHI_JSON = "{\"meals\":["
+			+ "{\"idMeal\":\"52795\",\"strMeal\":\"Chicken Handi\",\"strCategory\":\"Chicken\",\"strArea\":\"Indian\"},"
+			+ "{\"idMeal\":\"52831\",\"strMeal\":\"Chicken Karaage\",\"strCategory\":\"Chicken\",\"strArea\":\"Japanese\"},"
+			+ "{\"idMeal\":\"52937\",\"strMeal\":\"Jerk chicken with rice & peas\",\"strCategory\":\"Chicken\",\"strArea\":\"Jamaican\"},"
+			+ "{\"idMeal\":\"52765\",\"strMeal\":\"Chilli prawn linguine\",\"strCategory\":\"Pasta\",\"strArea\":\"British\"}]}";
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = new MockWebServer();
+		server.start();
+		service = new MealLabServices(server.url("/api/json/v1/").toString(), "1");
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		service.close();
+		server.shutdown();
+	}
+
+	private static List<String> names(List<MealLabInfo> meals) {
+		List<String> names = new ArrayList<>();
+		for (MealLabInfo meal : meals) {
+			names.add(meal.getName());
+		}
+		return names;
+	}
+
+//------------------------------------Test 1: Typing a word sends one request------------------------------------
+
+	@Test
+	void testRefinementsAreLocal() throws Exception {
+		System.out.println("Test 1: Typing \"chicken ka\" costs one request");
+
+		LiveSearch live = new LiveSearch(service);
+		server.enqueue(new MockResponse().setBody(CHI_JSON));
+
+		// Too short: no request at all
+		assertTrue(live.search("c", m -> fail("Too short")).get().isEmpty());
+
+		List<String> streamed = new ArrayList<>();
+		List<MealLabInfo> chi = live.search("chi", m -> streamed.add(m.getName())).get(5, TimeUnit.SECONDS);
+		assertEquals(4, chi.size());
+		assertEquals(names(chi), streamed);
+		assertEquals("/api/json/v1/1/search.php?s=chi", server.takeRequest().getPath());
+
+		// Every keystroke after that narrows the same result
+		assertEquals(3, live.search("chic", m -> { }).get().size());
+		assertEquals(3, live.search("Chicken", m -> { }).get().size());
+		List<MealLabInfo> karaage = live.search("chicken  KA", m -> { }).get();
+		assertEquals(Arrays.asList("Chicken Karaage"), names(karaage));
+		assertTrue(live.search("chicken kiev", m -> { }).get().isEmpty());
+
+		assertEquals(1, server.getRequestCount());
+		assertEquals(1, live.getRequestCount());
+		assertEquals(4, live.getLocalAnswerCount());
+
+		System.out.println(" -> Success! Requests: " + live.getRequestCount() + ", local answers: " + live.getLocalAnswerCount());
+	}
+
+//------------------------------------Test 2: A superseded search is cancelled------------------------------------
+
+	@Test
+	void testSupersededSearchIsCancelled() throws Exception {
+		System.out.println("\nTest 2: The search a newer one replaces is cancelled and forgotten");
+
+		LiveSearch live = new LiveSearch(service);
+		server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+		server.enqueue(new MockResponse().setBody(CHI_JSON));
+
+		CompletableFuture<List<MealLabInfo>> old = live.search("pas", m -> fail("Cancelled search delivered a meal"));
+		server.takeRequest(5, TimeUnit.SECONDS);
+		assertTrue(old.cancel(true));
+
+		assertEquals(4, live.search("chi", m -> { }).get(5, TimeUnit.SECONDS).size());
+
+		// "past" is not a refinement of the cancelled "pas", so it needs its own request
+		server.enqueue(new MockResponse().setBody("{\"meals\":null}"));
+		assertTrue(live.search("past", m -> { }).get(5, TimeUnit.SECONDS).isEmpty());
+		assertEquals(3, server.getRequestCount());
+
+		System.out.println(" -> Success! Requests: " + server.getRequestCount());
+	}
+}
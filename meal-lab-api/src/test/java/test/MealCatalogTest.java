@@ -0,0 +1,177 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import karanika.meallab.catalog.MealCatalog;
+import karanika.meallab.catalog.MealCatalogCrawler;
+import karanika.meallab.exception.MealLabException;
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.services.MealLabServices;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+// Tests for the offline catalog: crawling by first letter, save/load and offline mode of MealLabServices
+class MealCatalogTest {
+	
+	private MockWebServer server;
+	private MealLabServices service;
+	
+	// One meal in the API shape
+	private static String meal(String id, String name, String ingredient) {
+		return "{\"idMeal\":\"" + id + "\",\"strMeal\":\"" + name + "\",\"strCategory\":\"Chicken\",\"strArea\":\"Japanese\","
+				+ "\"strInstructions\":\"Cook it\",\"strMealThumb\":\"http://thumb/" + id + ".jpg\","
+				+ "\"strIngredient1\":\"" + ingredient + "\",\"strMeasure1\":\"1 cup\",\"strIngredient2\":\"Salt\",\"strMeasure2\":\"\"}";
+	}
+	
+	private volatile String failingLetter = "x";                  // The stub answers 500 for this one
+	
+	@BeforeEach
+	void setUp() throws IOException {
+		server = new MockWebServer();
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) {
+				String letter = request.getRequestUrl().queryParameter("f");
+				if ("a".equals(letter)) {
+					return new MockResponse().setBody("{\"meals\":[" + meal("1", "Apple Pie", "Apple") + ","
+							+ meal("2", "Arrabiata", "Penne Rigate") + "]}");
+				}
+				if ("b".equals(letter)) {
+					return new MockResponse().setBody("{\"meals\":[" + meal("3", "Beef Stew", "Chicken Breast") + "]}");
+				}
+				if ("1".equals(letter)) {
+					return new MockResponse().setBody("{\"meals\":[" + meal("4", "15-minute chicken & halloumi burgers", "Halloumi") + "]}");
+				}
+				if (failingLetter.equals(letter)) {
+					return new MockResponse().setResponseCode(500);
+				}
+				return new MockResponse().setBody("{\"meals\":null}");
+			}
+		});
+		server.start();
+		service = new MealLabServices(server.url("/api/json/v1/").toString(), "1");
+	}
+	
+	@AfterEach
+	void tearDown() throws IOException {
+		service.close();
+		server.shutdown();
+	}
+
+//--------------------------------------Test 1: Crawl, save and load-----------------------------------------
+
+	@Test
+	void testCrawlSaveAndLoad(@TempDir File dir) throws IOException {
+		System.out.println("Test 1: Crawl a-c in parallel, save and load");
+		
+		MealCatalog catalog = new MealCatalogCrawler(service, 3, 100).crawl("abc");
+		assertEquals(3, catalog.size());
+		assertEquals(3, server.getRequestCount());
+		
+		File file = new File(dir, "catalog.bin");
+		catalog.save(file);
+		MealCatalog loaded = MealCatalog.load(file);
+		
+		assertEquals(3, loaded.size());
+		MealLabInfo pie = loaded.findById("1");
+		assertEquals("Apple Pie", pie.getName());
+		assertEquals("Japanese", pie.getArea());
+		assertEquals(catalog.findById("1").getIngredients(), pie.getIngredients());
+		assertEquals(catalog.findById("1").getMeasures(), pie.getMeasures());
+		
+		System.out.println(" -> Success! " + loaded.size() + " meals, " + file.length() + " bytes on disk");
+	}
+
+//--------------------------------------Test 2: Failed letters are reported----------------------------------
+
+	@Test
+	void testCrawlReportsFailures() {
+		System.out.println("\nTest 2: A failing letter fails the crawl");
+		
+		MealLabException error = assertThrows(MealLabException.class,
+				() -> new MealCatalogCrawler(service, 2, 100).crawl("abx"));
+		assertTrue(error.getMessage().contains("x"));
+		
+		System.out.println(" -> " + error.getMessage());
+	}
+
+//-------------------------------------Test 3: Offline mode answers locally----------------------------------
+
+	@Test
+	void testOfflineMode() throws IOException {
+		System.out.println("\nTest 3: Offline mode, no network");
+		
+		MealCatalog catalog = new MealCatalogCrawler(service, 2, 100).crawl("ab");
+		int requestsBefore = server.getRequestCount();
+		
+		try (MealLabServices offline = new MealLabServices.Builder("http://unused.invalid/", "1")
+				.offlineCatalog(catalog)
+				.build()) {
+			assertTrue(offline.isOffline());
+			
+			List<MealLabInfo> byName = offline.searchMealsByName("  arrab");
+			assertEquals(1, byName.size());
+			
+			List<MealLabInfo> byIngredient = offline.searchMealsByIngredient("chicken_breast");
+			assertEquals("3", byIngredient.get(0).getId());
+			
+			assertEquals("Beef Stew", offline.getMealDetailsById("3").getName());
+			assertNull(offline.getMealDetailsById("999"));
+			assertNotNull(offline.getRandomMeal());
+			assertEquals(2, offline.searchMealsByFirstLetter('A').size());
+		}
+		assertEquals(requestsBefore, server.getRequestCount(), "Offline mode must not touch the network");
+		
+		System.out.println(" -> Success! All queries answered from the mirror.");
+	}
+
+//------------------------------------Test 4: Category and area filters---------------------------------------
+
+	@Test
+	void testCategoryAndAreaFilters() {
+		System.out.println("\nTest 4: Filters and grouping on symbol IDs");
+		
+		MealCatalog catalog = new MealCatalog(List.of(
+				new MealLabInfo("1", "Teriyaki Chicken", "Chicken", "Cook", "Japanese", "t1", new String[] { "Soy Sauce" }, new String[] { "" }),
+				new MealLabInfo("2", "Sushi", "Seafood", "Roll", "Japanese", "t2", new String[] { "Rice" }, new String[] { "" }),
+				new MealLabInfo("3", "Chicken Pie", "Chicken", "Bake", "British", "t3", new String[] { "Chicken" }, new String[] { "" })));
+		
+		assertEquals(2, catalog.filterByCategory(" chicken").size());
+		assertEquals(2, catalog.filterByArea("JAPANESE").size());
+		assertTrue(catalog.filterByArea("Greek").isEmpty());
+		assertEquals(Map.of("Chicken", 2, "Seafood", 1), catalog.countByCategory());
+		
+		// Repeated values are one shared instance
+		assertSame(catalog.findById("1").getCategory(), catalog.findById("3").getCategory());
+		
+		System.out.println(" -> Success! " + catalog.countByCategory());
+	}
+
+//---------------------------------Test 5: The full crawl includes digits---------------------------------------
+
+	@Test
+	void testFullCrawlIncludesDigits() throws IOException {
+		System.out.println("\nTest 5: Crawl every letter and digit");
+		
+		failingLetter = "";
+		MealCatalog catalog = new MealCatalogCrawler(service, 4, 1000).crawl();
+		assertEquals(MealCatalogCrawler.ALL_LETTERS.length(), server.getRequestCount());
+		assertEquals(4, catalog.size());
+		assertEquals("15-minute chicken & halloumi burgers", catalog.findById("4").getName());
+		assertEquals(1, catalog.searchByFirstLetter('1').size());
+		
+		System.out.println(" -> Success! " + catalog.size() + " meals from " + server.getRequestCount() + " requests");
+	}
+}
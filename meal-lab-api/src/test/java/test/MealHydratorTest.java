@@ -0,0 +1,136 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.services.MealHydrator;
+import karanika.meallab.services.MealLabServices;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+// Tests for MealHydrator: partial filter.php rows are completed on demand and prefetched in the background
+class MealHydratorTest {
+	
+	private MockWebServer server;
+	private MealLabServices service;
+	private final AtomicInteger lookups = new AtomicInteger();
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicInteger maxRunning = new AtomicInteger();
+	
+	@BeforeEach
+	void setUp() throws IOException {
+		server = new MockWebServer();
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+				String id = request.getRequestUrl().queryParameter("i");
+				lookups.incrementAndGet();
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(30);                              // Lets lookups overlap
+					if ("404".equals(id)) {
+						return new MockResponse().setBody("{\"meals\":null}");
+					}
+					return new MockResponse().setBody("{\"meals\":[{\"idMeal\":\"" + id + "\",\"strMeal\":\"Meal " + id
+							+ "\",\"strCategory\":\"Chicken\",\"strArea\":\"Greek\",\"strInstructions\":\"Cook it\","
+							+ "\"strMealThumb\":\"http://thumb/" + id + ".jpg\",\"strIngredient1\":\"Salt\",\"strMeasure1\":\"pinch\"}]}");
+				} finally {
+					running.decrementAndGet();
+				}
+			}
+		});
+		server.start();
+		service = new MealLabServices(server.url("/api/json/v1/").toString(), "1");
+	}
+	
+	@AfterEach
+	void tearDown() throws IOException {
+		service.close();
+		server.shutdown();
+	}
+	
+	// A row in the shape of filter.php: ID, name and thumbnail only
+	private static MealLabInfo partial(String id) {
+		return new MealLabInfo(id, "Meal " + id, null, null, null, "http://thumb/" + id + ".jpg");
+	}
+
+//------------------------------------Test 1: Hydration on demand---------------------------------------------
+
+	@Test
+	void testHydrateOnDemand() throws Exception {
+		System.out.println("Test 1: Selected row is completed once");
+		
+		MealHydrator hydrator = new MealHydrator(service);
+		MealLabInfo row = partial("52772");
+		assertTrue(MealHydrator.isPartial(row));
+		assertSame(row, hydrator.getIfHydrated(row));
+		
+		MealLabInfo full = hydrator.hydrate(row).get(5, TimeUnit.SECONDS);
+		assertEquals("Cook it", full.getInstructions());
+		assertEquals("Chicken", full.getCategory());
+		assertTrue(full.isValid());
+		
+		// Known now: no second request, also not for another partial copy of the same row
+		assertSame(full, hydrator.hydrate(partial("52772")).get(5, TimeUnit.SECONDS));
+		assertSame(full, hydrator.getIfHydrated(partial("52772")));
+		assertEquals(1, lookups.get());
+		
+		// Complete meals and unknown IDs
+		assertSame(full, hydrator.hydrate(full).get(5, TimeUnit.SECONDS));
+		MealLabInfo unknown = partial("404");
+		assertSame(unknown, hydrator.hydrate(unknown).get(5, TimeUnit.SECONDS));
+		assertEquals(2, lookups.get());
+		
+		System.out.println(" -> Success! " + full.getName() + ": " + full.getFormattedIngredients());
+	}
+
+//-------------------------------------Test 2: Background prefetch--------------------------------------------
+
+	@Test
+	void testPrefetch() throws Exception {
+		System.out.println("\nTest 2: Prefetch the next 6 of 20 rows, 2 at a time");
+		
+		MealHydrator hydrator = new MealHydrator(service, 2, 100);
+		AtomicInteger arrived = new AtomicInteger();
+		hydrator.setOnHydrated(full -> arrived.incrementAndGet());
+		List<MealLabInfo> rows = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			rows.add(partial(String.valueOf(53000 + i)));
+		}
+		
+		hydrator.prefetch(rows, 4, 6);
+		long deadline = System.currentTimeMillis() + 5000;
+		while (arrived.get() < 6 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		for (int i = 4; i < 10; i++) {
+			assertFalse(MealHydrator.isPartial(hydrator.getIfHydrated(rows.get(i))), "Row " + i + " should be hydrated");
+		}
+		assertTrue(MealHydrator.isPartial(hydrator.getIfHydrated(rows.get(10))));
+		assertEquals(6, lookups.get());
+		assertEquals(6, arrived.get());
+		assertTrue(maxRunning.get() <= 2, "At most 2 prefetches at a time, saw " + maxRunning.get());
+		
+		// The selected row is already there: no request and no waiting
+		assertTrue(hydrator.hydrate(rows.get(5)).isDone());
+		
+		// A new prefetch replaces the rows still waiting
+		hydrator.prefetch(rows, 10, 10);
+		hydrator.prefetch(rows, 0, 2);
+		assertTrue(hydrator.getQueuedCount() <= 2);
+		
+		System.out.println(" -> Success! " + lookups.get() + " lookups, at most " + maxRunning.get() + " at once");
+	}
+}
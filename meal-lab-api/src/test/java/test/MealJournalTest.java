@@ -0,0 +1,241 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.storage.MealJournal;
+import karanika.meallab.storage.MealJournal.FsyncPolicy;
+
+// Unit tests for the append-only favorites journal (replay, torn tail, compaction, failed writes and syncs)
+class MealJournalTest {
+	
+	private static MealLabInfo meal(String id) {
+		return new MealLabInfo(id, "Meal " + id, "Cat", "Instr", "Area", "Thumb",
+				new String[] { "Garlic" }, new String[] { "2 cloves" });
+	}
+	
+	// Journal channel that can fail: a write stores half the record and then throws (like a full disk),
+	// force throws while failForce is set
+	static final class FailingChannel extends FileChannel {
+		
+		private final FileChannel channel;
+		volatile boolean failWrite;
+		volatile boolean failForce;
+		
+		FailingChannel(FileChannel channel) {
+			this.channel = channel;
+		}
+		
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			if (failWrite) {
+				ByteBuffer half = src.duplicate();
+				half.limit(half.position() + half.remaining() / 2);
+				channel.write(half);
+				throw new IOException("No space left on device");
+			}
+			return channel.write(src);
+		}
+		
+		@Override
+		public void force(boolean metaData) throws IOException {
+			if (failForce) {
+				throw new IOException("Sync failed");
+			}
+			channel.force(metaData);
+		}
+		
+		@Override public int read(ByteBuffer dst) throws IOException { return channel.read(dst); }
+		@Override public long read(ByteBuffer[] dsts, int offset, int length) throws IOException { return channel.read(dsts, offset, length); }
+		@Override public long write(ByteBuffer[] srcs, int offset, int length) throws IOException { return channel.write(srcs, offset, length); }
+		@Override public long position() throws IOException { return channel.position(); }
+		@Override public FileChannel position(long newPosition) throws IOException { channel.position(newPosition); return this; }
+		@Override public long size() throws IOException { return channel.size(); }
+		@Override public FileChannel truncate(long size) throws IOException { channel.truncate(size); return this; }
+		@Override public long transferTo(long position, long count, WritableByteChannel target) throws IOException { return channel.transferTo(position, count, target); }
+		@Override public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException { return channel.transferFrom(src, position, count); }
+		@Override public int read(ByteBuffer dst, long position) throws IOException { return channel.read(dst, position); }
+		@Override public int write(ByteBuffer src, long position) throws IOException { return channel.write(src, position); }
+		@Override public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException { return channel.map(mode, position, size); }
+		@Override public FileLock lock(long position, long size, boolean shared) throws IOException { return channel.lock(position, size, shared); }
+		@Override public FileLock tryLock(long position, long size, boolean shared) throws IOException { return channel.tryLock(position, size, shared); }
+		@Override protected void implCloseChannel() throws IOException { channel.close(); }
+	}
+	
+	private static List<String> ids(List<MealLabInfo> meals) {
+		List<String> ids = new ArrayList<>();
+		meals.forEach(m -> ids.add(m.getId()));
+		return ids;
+	}
+
+//---------------------------------------Test 1: Changes survive a restart-------------------------------------
+
+	@Test
+	void testReplayAfterRestart(@TempDir File dir) throws IOException {
+		System.out.println("Test 1: Add/remove and replay");
+		
+		assertFalse(MealJournal.exists(dir, "favorites"));
+		try (MealJournal journal = MealJournal.open(dir, "favorites", FsyncPolicy.ALWAYS)) {
+			assertTrue(journal.add(meal("1")));
+			assertTrue(journal.add(meal("2")));
+			assertTrue(journal.add(meal("3")));
+			assertFalse(journal.add(meal("2")), "Duplicates are not written");
+			assertTrue(journal.remove("1"));
+			assertFalse(journal.remove("unknown"));
+			assertEquals(4, journal.getJournalRecordCount());
+		}
+		
+		assertTrue(MealJournal.exists(dir, "favorites"));
+		try (MealJournal journal = MealJournal.open(dir, "favorites", FsyncPolicy.ALWAYS)) {
+			assertEquals(Arrays.asList("2", "3"), ids(journal.getMeals()));
+			assertEquals("2 cloves", journal.getMeals().get(0).getMeasures().get(0));
+		}
+		System.out.println(" -> Success!");
+	}
+
+//-----------------------------------Test 2: A torn last record is cut off-------------------------------------
+
+	@Test
+	void testTornTail(@TempDir File dir) throws IOException {
+		System.out.println("\nTest 2: Crash in the middle of a write");
+		
+		try (MealJournal journal = MealJournal.open(dir, "cooked", FsyncPolicy.NEVER)) {
+			journal.add(meal("1"));
+			journal.add(meal("2"));
+		}
+		File journalFile = new File(dir, "cooked.journal");
+		long intactLength = journalFile.length();
+		
+		// Half a record: a length header promising more bytes than follow
+		Files.write(journalFile.toPath(), new byte[] { 0, 0, 0, 50, 1, 2, 3 }, StandardOpenOption.APPEND);
+		
+		try (MealJournal journal = MealJournal.open(dir, "cooked", FsyncPolicy.NEVER)) {
+			assertEquals(Arrays.asList("1", "2"), ids(journal.getMeals()));
+			assertEquals(intactLength, journalFile.length(), "Torn tail should be truncated");
+			journal.add(meal("3"));
+		}
+		try (MealJournal journal = MealJournal.open(dir, "cooked", FsyncPolicy.NEVER)) {
+			assertEquals(Arrays.asList("1", "2", "3"), ids(journal.getMeals()));
+		}
+		System.out.println(" -> Success!");
+	}
+
+//-------------------------------------Test 3: Compaction into a snapshot-------------------------------------
+
+	@Test
+	void testCompaction(@TempDir File dir) throws IOException {
+		System.out.println("\nTest 3: Journal folded into a snapshot");
+		
+		try (MealJournal journal = MealJournal.open(dir, "favorites", FsyncPolicy.PERIODIC, 5)) {
+			for (int i = 0; i < 4; i++) {
+				journal.add(meal(String.valueOf(i)));
+			}
+			journal.remove("0");                               // 5th record: compaction
+			assertEquals(0, journal.getJournalRecordCount());
+			assertTrue(new File(dir, "favorites.snapshot").exists());
+			
+			journal.add(meal("9"));
+			journal.replaceAll(Arrays.asList(meal("7"), meal("8"), meal("7")));
+			assertEquals(Arrays.asList("7", "8"), ids(journal.getMeals()));
+		}
+		try (MealJournal journal = MealJournal.open(dir, "favorites", FsyncPolicy.PERIODIC, 5)) {
+			assertEquals(Arrays.asList("7", "8"), ids(journal.getMeals()));
+			assertEquals(0, new File(dir, "favorites.journal").length());
+		}
+		System.out.println(" -> Success!");
+	}
+
+//------------------------------Test 4: PERIODIC syncs without a further change--------------------------------
+
+	@Test
+	void testPeriodicSyncTimer(@TempDir File dir) throws Exception {
+		System.out.println("\nTest 4: The last change of a burst is forced by the timer");
+		
+		try (MealJournal journal = MealJournal.open(dir, "favorites", FsyncPolicy.PERIODIC)) {
+			for (int i = 0; i < 10; i++) {
+				journal.add(meal(String.valueOf(i)));
+			}
+			assertTrue(journal.hasUnsyncedChanges());
+			
+			long start = System.nanoTime();
+			while (journal.hasUnsyncedChanges() && System.nanoTime() - start < 5_000_000_000L) {
+				Thread.sleep(50);
+			}
+			assertFalse(journal.hasUnsyncedChanges(), "No sync within 5 s");
+			System.out.println(" -> Success! Synced after " + (System.nanoTime() - start) / 1_000_000 + " ms");
+		}
+	}
+
+//------------------------------Test 5: A failed write does not hide later records------------------------------
+
+	@Test
+	void testFailedWriteIsRolledBack(@TempDir File dir) throws IOException {
+		System.out.println("\nTest 5: Half-written record (disk full) is rolled back");
+		
+		FailingChannel[] channel = new FailingChannel[1];
+		try (MealJournal journal = MealJournal.open(dir, "favorites", FsyncPolicy.NEVER, 1000,
+				opened -> channel[0] = new FailingChannel(opened))) {
+			journal.add(meal("1"));
+			
+			channel[0].failWrite = true;
+			assertThrows(IOException.class, () -> journal.add(meal("2")));
+			assertFalse(journal.contains("2"));
+			assertThrows(IOException.class, () -> journal.remove("1"));
+			assertTrue(journal.contains("1"));
+			
+			channel[0].failWrite = false;
+			journal.add(meal("3"));
+			journal.remove("1");
+			journal.add(meal("4"));
+		}
+		try (MealJournal journal = MealJournal.open(dir, "favorites", FsyncPolicy.NEVER)) {
+			assertEquals(Arrays.asList("3", "4"), ids(journal.getMeals()), "Records after the failed write were lost");
+			assertEquals(4, journal.getJournalRecordCount());
+		}
+		System.out.println(" -> Success!");
+	}
+
+//-----------------------------Test 6: A failed timer sync fails the next change only-----------------------------
+
+	@Test
+	void testSyncErrorBeforeNextChange(@TempDir File dir) throws Exception {
+		System.out.println("\nTest 6: A failed periodic sync is reported before the next change is made");
+		
+		FailingChannel[] channel = new FailingChannel[1];
+		try (MealJournal journal = MealJournal.open(dir, "favorites", FsyncPolicy.PERIODIC, 1000,
+				opened -> channel[0] = new FailingChannel(opened))) {
+			channel[0].failForce = true;
+			journal.add(meal("1"));
+			Thread.sleep(1500);                               // The timer tries (and fails) to sync
+			
+			IOException error = assertThrows(IOException.class, () -> journal.add(meal("2")));
+			assertEquals("Sync failed", error.getMessage());
+			assertFalse(journal.contains("2"), "The change that reported the error must not have happened");
+			assertTrue(journal.hasUnsyncedChanges());
+			
+			channel[0].failForce = false;
+			assertTrue(journal.add(meal("2")));
+		}
+		try (MealJournal journal = MealJournal.open(dir, "favorites", FsyncPolicy.NEVER)) {
+			assertEquals(Arrays.asList("1", "2"), ids(journal.getMeals()));
+		}
+		System.out.println(" -> Success!");
+	}
+}
@@ -0,0 +1,200 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import karanika.meallab.exception.MealLabException;
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.storage.MealLabInfoCodec;
+
+// Unit tests for the dictionary-based storage codec: round trip, old JSON files, load time, damaged data
+class MealLabInfoCodecTest {
+	
+	private static final String[] CATEGORIES = { "Beef", "Chicken", "Dessert", "Pasta", "Seafood", "Vegetarian" };
+	private static final String[] AREAS = { "British", "Italian", "Greek", "Mexican", "Japanese" };
+	private static final String[] INGREDIENTS = { "Garlic", "Onion", "Olive Oil", "Salt", "Pepper", "Butter", "Flour", "Eggs" };
+	private static final String[] MEASURES = { "1 tsp", "2 tbs", "100g", "pinch", "" };
+	
+	private static List<MealLabInfo> sampleMeals(int count) {
+		List<MealLabInfo> meals = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			int n = 3 + i % 6;
+			String[] ingredients = new String[n];
+			String[] measures = new String[n];
+			for (int k = 0; k < n; k++) {
+				ingredients[k] = INGREDIENTS[(i + k) % INGREDIENTS.length];
+				measures[k] = MEASURES[(i * 3 + k) % MEASURES.length];
+			}
+			meals.add(new MealLabInfo(String.valueOf(50000 + i), "Meal number " + i, CATEGORIES[i % CATEGORIES.length],
+					"Step 1: prepare meal " + i + ". Step 2: cook it gently until done.", AREAS[i % AREAS.length],
+					"https://www.themealdb.com/images/media/meals/m" + i + ".jpg", ingredients, measures));
+		}
+		return meals;
+	}
+	
+	private static byte[] encode(List<MealLabInfo> meals) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(bytes))) {
+			MealLabInfoCodec.writeMeals(out, meals);
+		}
+		return bytes.toByteArray();
+	}
+	
+	private static List<MealLabInfo> decode(byte[] data) throws IOException {
+		return MealLabInfoCodec.readMeals(new DataInputStream(new BufferedInputStream(new ByteArrayInputStream(data))));
+	}
+
+//----------------------------------------Test 1: Every field round-trips---------------------------------------
+
+	@Test
+	void testRoundTrip() throws IOException {
+		System.out.println("Test 1: Round trip with shared strings");
+		
+		List<MealLabInfo> meals = new ArrayList<>(sampleMeals(12));
+		meals.add(new MealLabInfo("1", "Ελληνική σαλάτα", null, null, "Greek", null,
+				new String[] { "Feta" }, new String[] { "" }));
+		
+		List<MealLabInfo> copy = decode(encode(meals));
+		
+		assertEquals(meals.size(), copy.size());
+		for (int i = 0; i < meals.size(); i++) {
+			MealLabInfo a = meals.get(i), b = copy.get(i);
+			assertEquals(a.getId(), b.getId());
+			assertEquals(a.getName(), b.getName());
+			assertEquals(a.getCategory(), b.getCategory());
+			assertEquals(a.getInstructions(), b.getInstructions());
+			assertEquals(a.getArea(), b.getArea());
+			assertEquals(a.getThumbnail(), b.getThumbnail());
+			assertEquals(a.getIngredients(), b.getIngredients());
+			assertEquals(a.getMeasures(), b.getMeasures());
+		}
+		// Repeated strings are one instance after loading
+		assertSame(copy.get(0).getCategory(), copy.get(6).getCategory());
+		
+		System.out.println(" -> Success!");
+	}
+
+//-------------------------------------Test 2: Files of older versions---------------------------------------
+
+	@Test
+	void testLegacyJson(@TempDir File dir) throws IOException {
+		System.out.println("\nTest 2: favorites.json written by ObjectMapper.writeValue");
+		
+		// The shape older versions wrote, including the derived fields
+		String legacy = "[{\"id\":\"52771\",\"name\":\"Spicy Arrabiata Penne\",\"category\":\"Vegetarian\","
+				+ "\"instructions\":\"Bring a pot of water to boil\",\"area\":\"Italian\",\"thumbnail\":\"thumb.jpg\","
+				+ "\"ingredients\":[\"penne rigate\",\"olive oil\",\"garlic\"],\"measures\":[\"1 pound\",\"1/4 cup\"],"
+				+ "\"ingredientsCount\":3,\"formattedIngredients\":\"1 pound penne rigate\",\"valid\":true}]";
+		File file = new File(dir, "favorites.json");
+		Files.write(file.toPath(), legacy.getBytes(StandardCharsets.UTF_8));
+		
+		List<MealLabInfo> meals = MealLabInfoCodec.readLegacyJson(file);
+		
+		assertEquals(1, meals.size());
+		MealLabInfo meal = meals.get(0);
+		assertEquals("52771", meal.getId());
+		assertEquals("Italian", meal.getArea());
+		assertEquals(Arrays.asList("penne rigate", "olive oil", "garlic"), meal.getIngredients());
+		assertEquals(Arrays.asList("1 pound", "1/4 cup", ""), meal.getMeasures());
+		
+		// Derived values are no longer serialized
+		String json = new ObjectMapper().writeValueAsString(meal);
+		assertFalse(json.contains("formattedIngredients") || json.contains("ingredientsCount") || json.contains("valid"));
+		
+		System.out.println(" -> Success! " + json.length() + " bytes as JSON now");
+	}
+
+//------------------------------------------Test 3: Load 100.000 meals------------------------------------------
+
+	@Test
+	void testLoadTime(@TempDir File dir) throws IOException {
+		System.out.println("\nTest 3: 100.000 meals, codec vs. the JSON files of older versions");
+		
+		List<MealLabInfo> meals = sampleMeals(100_000);
+		File json = new File(dir, "meals.json");
+		new ObjectMapper().writeValue(json, meals);
+		byte[] binary = encode(meals);
+		assertTrue(binary.length < json.length() / 2, "Dictionary format should be much smaller");
+		
+		long jsonNanos = Long.MAX_VALUE, codecNanos = Long.MAX_VALUE;
+		for (int round = 0; round < 5; round++) {                // Best of 5 (the first ones warm up)
+			long start = System.nanoTime();
+			assertEquals(100_000, MealLabInfoCodec.readLegacyJson(json).size());
+			jsonNanos = Math.min(jsonNanos, System.nanoTime() - start);
+			
+			start = System.nanoTime();
+			assertEquals(100_000, decode(binary).size());
+			codecNanos = Math.min(codecNanos, System.nanoTime() - start);
+		}
+		
+		System.out.printf(" -> JSON:  %,d bytes, %d ms%n", json.length(), jsonNanos / 1_000_000);
+		System.out.printf(" -> Codec: %,d bytes, %d ms%n", binary.length, codecNanos / 1_000_000);
+	}
+
+//---------------------------------------Test 4: Damaged data fails cleanly--------------------------------------
+
+	// [int length][block] around the given block bytes
+	private static byte[] block(int... bytes) throws IOException {
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(data)) {
+			out.writeInt(bytes.length);
+			for (int b : bytes) {
+				out.writeByte(b);
+			}
+		}
+		return data.toByteArray();
+	}
+	
+	@Test
+	void testCorruptData() throws IOException {
+		System.out.println("\nTest 4: Damaged lengths and counts");
+		
+		// A block length of 2 GB is refused before anything is allocated
+		byte[] hugeLength = { 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 2, 0 };
+		assertTrue(assertThrows(MealLabException.class, () -> decode(hugeLength)).getMessage().startsWith("Corrupt meal data"));
+		
+		// Meal count of 2^31 - 1 and of -1 in a 6-byte block
+		assertThrows(MealLabException.class, () -> decode(block(2, 0xFF, 0xFF, 0xFF, 0xFF, 0x07)));
+		assertThrows(MealLabException.class, () -> decode(block(2, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F)));
+		
+		// One meal (id "a", everything else null) with an ingredient count of 2^31 - 1
+		assertThrows(MealLabException.class, () -> decode(block(2, 1, 2, 'a', 0, 0, 0, 0, 0, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x07)));
+		// The same with a dictionary reference below 0
+		assertThrows(MealLabException.class, () -> decode(block(2, 1, 2, 'a', 0, 0, 0xFF, 0xFF, 0xFF, 0xFF, 0x0F, 0, 0, 0, 0)));
+		
+		// Any damaged byte gives a result or an IOException, never a RuntimeException
+		byte[] valid = encode(sampleMeals(20));
+		Random random = new Random(42);
+		int rejected = 0;
+		for (int i = 0; i < 2000; i++) {
+			byte[] damaged = valid.clone();
+			damaged[random.nextInt(damaged.length)] = (byte) random.nextInt(256);
+			try {
+				decode(damaged);
+			} catch (IOException e) {
+				rejected++;
+			}
+		}
+		
+		System.out.println(" -> Success! " + rejected + " of 2000 damaged copies rejected");
+	}
+}
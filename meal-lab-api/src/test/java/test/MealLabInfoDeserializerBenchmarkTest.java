@@ -0,0 +1,61 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.model.MealResponse;
+
+// Timing of MealLabInfoDeserializer against the @JsonAnySetter path. Not part of the normal test run:
+// mvn test -Pbenchmark
+@Tag("benchmark")
+class MealLabInfoDeserializerBenchmarkTest {
+	
+	private static final int ROUNDS = 2000;
+	private static final int PASSES = 5;                    // The first passes warm up the JIT, the last one counts
+
+//----------------------------------Benchmark: Letter listing of 25 meals-------------------------------------
+
+	@Test
+	void benchmarkAgainstAnySetter() throws Exception {
+		System.out.println("Benchmark: letter listing of 25 meals, " + ROUNDS + " rounds");
+		
+		StringBuilder listing = new StringBuilder("{\"meals\":[");
+		for (int i = 0; i < 25; i++) {
+			listing.append(i > 0 ? "," : "").append(MealLabInfoDeserializerTest.mealJson(52700 + i));
+		}
+		byte[] body = listing.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+		
+		ObjectMapper mapper = new ObjectMapper();
+		ObjectMapper anySetterMapper = new ObjectMapper();
+		anySetterMapper.addMixIn(MealLabInfo.class, MealLabInfoDeserializerTest.AnySetterPath.class);
+		
+		long anySetterNanos = 0;
+		long customNanos = 0;
+		for (int pass = 0; pass < PASSES; pass++) {
+			anySetterNanos = time(anySetterMapper, body);
+			customNanos = time(mapper, body);
+		}
+		
+		System.out.printf(" -> @JsonAnySetter: %.1f us per listing%n", anySetterNanos / 1000.0 / ROUNDS);
+		System.out.printf(" -> Deserializer:   %.1f us per listing%n", customNanos / 1000.0 / ROUNDS);
+		System.out.printf(" -> Speed-up: %.2fx%n", (double) anySetterNanos / customNanos);
+	}
+	
+	private static long time(ObjectMapper mapper, byte[] body) throws Exception {
+		int sink = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < ROUNDS; i++) {
+			sink += mapper.readValue(body, MealResponse.class).getMealCount();
+		}
+		long elapsed = System.nanoTime() - start;
+		assertEquals(25 * ROUNDS, sink);
+		return elapsed;
+	}
+}
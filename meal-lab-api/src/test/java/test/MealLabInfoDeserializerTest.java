@@ -0,0 +1,104 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.model.MealResponse;
+
+// Tests for the hand-written MealLabInfoDeserializer (the timing against @JsonAnySetter is MealLabInfoDeserializerBenchmarkTest)
+class MealLabInfoDeserializerTest {
+	
+	private final ObjectMapper mapper = new ObjectMapper();
+	
+	// Mix-in that switches the custom deserializer off, so Jackson falls back to @JsonCreator + @JsonAnySetter
+	@JsonDeserialize(using = JsonDeserializer.None.class)
+	abstract static class AnySetterPath {
+	}
+	
+	// Builds one meal in the exact shape of the API: 20 ingredient and 20 measure keys, most of them empty
+	static String mealJson(int id) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"idMeal\":\"").append(id).append("\",\"strMeal\":\"Meal ").append(id)
+		  .append("\",\"strDrinkAlternate\":null,\"strCategory\":\"Chicken\",\"strArea\":\"Japanese\",")
+		  .append("\"strInstructions\":\"Preheat oven to 350F. Mix everything and bake for 45 minutes.\",")
+		  .append("\"strMealThumb\":\"https://www.themealdb.com/images/media/meals/wvpsxx1468256321.jpg\",")
+		  .append("\"strTags\":\"Meat,Casserole\",\"strYoutube\":\"https://www.youtube.com/watch?v=4aZr5hZXP_s\",");
+		for (int i = 1; i <= 20; i++) {
+			sb.append("\"strIngredient").append(i).append("\":").append(i <= 9 ? "\"Ingredient " + i + "\"" : "\"\"").append(',');
+		}
+		for (int i = 1; i <= 20; i++) {
+			sb.append("\"strMeasure").append(i).append("\":").append(i <= 9 ? "\"" + i + " tbs\"" : (i % 2 == 0 ? "\" \"" : "null")).append(',');
+		}
+		sb.append("\"strSource\":null,\"dateModified\":null}");
+		return sb.toString();
+	}
+
+//-----------------------------Test 1: Ingredients and measures are paired by slot------------------------------
+
+	@Test
+	void testSlotPairing() throws Exception {
+		System.out.println("Test 1: Pairing by slot number");
+		
+		// Slot 6 has no ingredient but a measure, slot 7 has an ingredient without a measure
+		String json = "{\"strMeasure7\":\"\",\"idMeal\":\"1\",\"strMeal\":\"Test\",\"strIngredient7\":\" Salt \","
+				+ "\"strMeasure1\":\"200g\",\"strIngredient1\":\"Flour\",\"strIngredient6\":\"\",\"strMeasure6\":\"1 cup\","
+				+ "\"strIngredient10\":\"Eggs\",\"strMeasure10\":\"2\",\"strIngredient21\":\"Ignored\",\"strMeasureX\":\"Ignored\"}";
+		
+		MealLabInfo meal = mapper.readValue(json, MealLabInfo.class);
+		
+		assertEquals(Arrays.asList("Flour", "Salt", "Eggs"), meal.getIngredients());
+		assertEquals(Arrays.asList("200g", "", "2"), meal.getMeasures());
+		assertEquals("200g Flour\nSalt\n2 Eggs", meal.getFormattedIngredients());
+		
+		System.out.println(" -> " + meal.getIngredients() + " / " + meal.getMeasures());
+	}
+
+//--------------------------------Test 2: Core fields and the wrapper class--------------------------------------
+
+	@Test
+	void testCoreFieldsThroughMealResponse() throws Exception {
+		System.out.println("\nTest 2: Core fields through MealResponse");
+		
+		MealResponse response = mapper.readValue("{\"meals\":[" + mealJson(52772) + "]}", MealResponse.class);
+		MealLabInfo meal = response.getFirstMeal();
+		
+		assertEquals("52772", meal.getId());
+		assertEquals("Meal 52772", meal.getName());
+		assertEquals("Chicken", meal.getCategory());
+		assertEquals("Japanese", meal.getArea());
+		assertNotNull(meal.getInstructions());
+		assertEquals(9, meal.getIngredientsCount());
+		assertTrue(meal.isValid());
+		
+		System.out.println(" -> Parsed: " + meal.getName() + " with " + meal.getIngredientsCount() + " ingredients");
+	}
+
+//-----------------------------Test 3: Same result as the @JsonAnySetter path----------------------------------
+
+	@Test
+	void testSameResultAsAnySetter() throws Exception {
+		System.out.println("\nTest 3: Both deserialization paths agree");
+		
+		ObjectMapper anySetterMapper = new ObjectMapper();
+		anySetterMapper.addMixIn(MealLabInfo.class, AnySetterPath.class);
+		
+		// The sample has no gaps, so arrival order and slot order match
+		String json = mealJson(52771);
+		MealLabInfo fast = mapper.readValue(json, MealLabInfo.class);
+		MealLabInfo slow = anySetterMapper.readValue(json, MealLabInfo.class);
+		assertEquals(slow.getId(), fast.getId());
+		assertEquals(slow.getName(), fast.getName());
+		assertEquals(slow.getIngredients(), fast.getIngredients());
+		assertEquals(slow.getMeasures(), fast.getMeasures());
+		
+		System.out.println(" -> Success! " + fast.getIngredientsCount() + " ingredients on both paths");
+	}
+}
@@ -2,7 +2,12 @@ package test;
 
 
 import static org.junit.jupiter.api.Assertions.*; 
+
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.jupiter.api.Test;              
+import karanika.meallab.model.MealIngredient;
 import karanika.meallab.model.MealLabInfo;
 
 class MealLabInfoTest { 
@@ -107,4 +112,44 @@ class MealLabInfoTest {
         assertFalse(noIngrMeal.isValid(), "Meal without ingredients should be invalid");
         System.out.println("Missing Ingredients Check: Passed");                
     }
+    
+    //----------------------------Test 5: frozen meals and read-only views--------------------------------
+    @Test
+    void testFrozenMeal() {
+        System.out.println("Test 5: Frozen meal (views, indexed accessors, pairs)");
+        
+        MealLabInfo meal = new MealLabInfo("1", "Pancakes", "Breakfast", "Cook it", "American", "url");
+        meal.setDynamicProperty("strIngredient2", "Eggs");
+        meal.setDynamicProperty("strIngredient1", "Flour");
+        meal.setDynamicProperty("strMeasure1", "200g");
+        assertFalse(meal.isFrozen());
+        
+        // The first read freezes the meal; slot order wins over arrival order
+        assertEquals(Arrays.asList("Flour", "Eggs"), meal.getIngredients());
+        assertTrue(meal.isFrozen());
+        assertEquals("200g", meal.measureAt(0));
+        assertEquals("", meal.measureAt(1));
+        assertEquals("Eggs", meal.ingredientAt(1));
+        
+        // Same view every time, no copies, and nothing can change it
+        assertSame(meal.getIngredients(), meal.getIngredients());
+        assertThrows(UnsupportedOperationException.class, () -> meal.getIngredients().add("Milk"));
+        assertThrows(UnsupportedOperationException.class, () -> meal.getMeasures().set(0, "1kg"));
+        assertThrows(IllegalStateException.class, () -> meal.setDynamicProperty("strIngredient3", "Milk"));
+        
+        // Paired view
+        List<MealIngredient> pairs = meal.getIngredientPairs();
+        assertEquals(2, pairs.size());
+        assertEquals("200g Flour", pairs.get(0).toString());
+        assertFalse(pairs.get(1).hasMeasure());
+        
+        // The array constructor keeps its own copy
+        String[] ingredients = { "Salt" };
+        MealLabInfo copy = new MealLabInfo("2", "Salty", "Cat", "Instr", "Area", "Thumb", ingredients, new String[0]);
+        ingredients[0] = "Sugar";
+        assertEquals("Salt", copy.ingredientAt(0));
+        assertEquals("", copy.measureAt(0));
+        
+        System.out.println("Pairs: " + pairs);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,597 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import karanika.meallab.cache.InMemoryMealCache;
+import karanika.meallab.exception.MealLabException;
+import karanika.meallab.index.TypeaheadIndex;
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.model.MealLookupResult;
+import karanika.meallab.services.MealLabServices;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+// Tests for class MealLabServices against a local stub server (MockWebServer), no Internet needed
+class MealLabServicesStubServerTest {
+
+	private MockWebServer server;
+	private MealLabServices service;
+
+	private static final String apiKey = "1";
+
+	// Sample payloads in the same shape TheMealDB API returns
+	static final String ARRABIATA_JSON = "{\"meals\":[{\"idMeal\":\"52771\",\"strMeal\":\"Spicy Arrabiata Penne\","
+			+ "\"strCategory\":\"Vegetarian\",\"strArea\":\"Italian\",\"strInstructions\":\"Bring a pot of water to boil\","
+			+ "\"strMealThumb\":\"https://www.themealdb.com/images/media/meals/ustsqw1468250014.jpg\","
+			+ "\"strIngredient1\":\"penne rigate\",\"strIngredient2\":\"olive oil\",\"strIngredient3\":\"garlic\","
+			+ "\"strMeasure1\":\"1 pound\",\"strMeasure2\":\"1/4 cup\",\"strMeasure3\":\"3 cloves\"}]}";
+	static final String EMPTY_JSON = "{\"meals\":null}";
+
+	// Setup: Runs before each test, a fresh stub server and service
+	@BeforeEach
+	void setUp() throws IOException {
+		server = new MockWebServer();
+		server.start();
+		service = new MealLabServices(server.url("/api/json/v1/").toString(), apiKey);
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		server.shutdown();
+	}
+
+//--------------------------------Test 1: Asynchronous search by Name--------------------------------
+
+	@Test
+	@DisplayName("Test 1: Async Search by Name")
+	void testSearchMealsByNameAsync() throws Exception {
+		System.out.println("Test 1: Async search for 'Arrabiata'");
+
+		//1. SetUp: the stub answers with one meal
+		server.enqueue(new MockResponse().setBody(ARRABIATA_JSON));
+
+		//2. Action
+		List<MealLabInfo> results = service.searchMealsByNameAsync("Arrabiata").get(5, TimeUnit.SECONDS);
+
+		//3. Assertions
+		assertEquals(1, results.size());
+		assertEquals("52771", results.get(0).getId());
+		RecordedRequest request = server.takeRequest();
+		assertEquals("/api/json/v1/1/search.php?s=arrabiata", request.getPath());
+
+		System.out.println(" -> Success! Found " + results.get(0).getName());
+	}
+
+//----------------------------Test 2: Caller-supplied executor completes the future---------------------
+
+	@Test
+	@DisplayName("Test 2: Async Lookup with an Executor")
+	void testLookupAsyncOnExecutor() throws Exception {
+		System.out.println("\nTest 2: Async lookup completed on our own executor");
+
+		ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "meal-callback"));
+		try {
+			server.enqueue(new MockResponse().setBody(ARRABIATA_JSON));
+
+			String threadName = service.getMealDetailsByIdAsync("52771", executor)
+					.thenApply(meal -> Thread.currentThread().getName())
+					.get(5, TimeUnit.SECONDS);
+
+			assertEquals("meal-callback", threadName, "Result should be delivered on the caller's executor");
+			System.out.println(" -> Completed on thread: " + threadName);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+//-------------------------------Test 3: Errors complete the future exceptionally--------------------------
+
+	@Test
+	@DisplayName("Test 3: Async errors")
+	void testAsyncErrors() {
+		System.out.println("\nTest 3: HTTP 500 and empty random meal");
+
+		// CASE A: Server error becomes a MealLabException with the status code
+		server.enqueue(new MockResponse().setResponseCode(500));
+		ExecutionException serverError = assertThrows(ExecutionException.class,
+				() -> service.searchMealsByIngredientAsync("Chicken").get(5, TimeUnit.SECONDS));
+		assertTrue(serverError.getCause() instanceof MealLabException);
+		assertEquals(500, ((MealLabException) serverError.getCause()).getStatusCode());
+
+		// CASE B: Random meal with no results
+		server.enqueue(new MockResponse().setBody(EMPTY_JSON));
+		ExecutionException noMeal = assertThrows(ExecutionException.class,
+				() -> service.getRandomMealAsync().get(5, TimeUnit.SECONDS));
+		assertTrue(noMeal.getCause() instanceof MealLabException);
+
+		// CASE C: Validation still happens immediately
+		assertThrows(IllegalArgumentException.class, () -> service.searchMealsByNameAsync(" "));
+
+		System.out.println(" -> Success! Errors reached the futures.");
+	}
+
+//------------------------------Test 4: Cancelling the future cancels the Call-----------------------------
+
+	@Test
+	@DisplayName("Test 4: Async cancellation")
+	void testAsyncCancellation() throws Exception {
+		System.out.println("\nTest 4: Cancel a slow request");
+
+		// The stub reads the request but never answers
+		server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+
+		CompletableFuture<List<MealLabInfo>> future = service.searchMealsByNameAsync("Arrabiata");
+		server.takeRequest(5, TimeUnit.SECONDS);      // Wait until the call is really on the wire
+
+		assertTrue(future.cancel(true));
+		assertTrue(future.isCancelled());
+
+		// The request slot is released, so a new call goes through straight away
+		server.enqueue(new MockResponse().setBody(ARRABIATA_JSON));
+		assertEquals(1, service.searchMealsByNameAsync("Arrabiata").get(5, TimeUnit.SECONDS).size());
+
+		System.out.println(" -> Success! Cancelled call did not block the next one.");
+	}
+
+//--------------------------------Test 5: Repeated lookups are served from the cache------------------------
+
+	@Test
+	@DisplayName("Test 5: Response cache")
+	void testResponseCache() throws Exception {
+		System.out.println("\nTest 5: Cached lookups and uncached random meals");
+		
+		InMemoryMealCache cache = new InMemoryMealCache(1000, Duration.ofMinutes(10));
+		MealLabServices cachedService = new MealLabServices.Builder(server.url("/api/json/v1/").toString(), apiKey)
+				.cache(cache)
+				.build();
+		
+		server.enqueue(new MockResponse().setBody(ARRABIATA_JSON));
+		MealLabInfo first = cachedService.getMealDetailsById("52771");
+		MealLabInfo second = cachedService.getMealDetailsById(" 52771 ");
+		MealLabInfo third = cachedService.getMealDetailsByIdAsync("52771").get(5, TimeUnit.SECONDS);
+		
+		assertSame(first, second);
+		assertSame(first, third);
+		assertEquals(1, server.getRequestCount(), "Only the first lookup should reach the server");
+		assertEquals(2, cache.stats().getHitCount());
+		
+		// random.php bypasses the cache
+		server.enqueue(new MockResponse().setBody(ARRABIATA_JSON));
+		server.enqueue(new MockResponse().setBody(ARRABIATA_JSON));
+		cachedService.getRandomMeal();
+		cachedService.getRandomMeal();
+		assertEquals(3, server.getRequestCount());
+		
+		System.out.println(" -> Success! " + cache.stats());
+	}
+
+//---------------------------Test 6: Concurrent identical lookups share one call------------------------------
+
+	@Test
+	@DisplayName("Test 6: Single-flight request coalescing")
+	void testConcurrentLookupsAreCoalesced() throws Exception {
+		System.out.println("\nTest 6: 8 threads ask for the same meal at once");
+		
+		// A slow answer keeps the first call in flight while the others arrive
+		server.enqueue(new MockResponse().setBody(ARRABIATA_JSON).setBodyDelay(500, TimeUnit.MILLISECONDS));
+		
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Callable<MealLabInfo>> tasks = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				tasks.add(() -> service.getMealDetailsById("52771"));
+			}
+			List<Future<MealLabInfo>> futures = new ArrayList<>();
+			for (Callable<MealLabInfo> task : tasks) {
+				futures.add(pool.submit(task));
+			}
+			server.takeRequest(5, TimeUnit.SECONDS);
+			CompletableFuture<MealLabInfo> asyncWaiter = service.getMealDetailsByIdAsync("52771");
+			
+			MealLabInfo first = futures.get(0).get(5, TimeUnit.SECONDS);
+			for (Future<MealLabInfo> future : futures) {
+				assertSame(first, future.get(5, TimeUnit.SECONDS), "All callers should share one parsed meal");
+			}
+			assertSame(first, asyncWaiter.get(5, TimeUnit.SECONDS));
+			assertEquals(1, server.getRequestCount(), "Only one HTTP call should be sent");
+		} finally {
+			pool.shutdownNow();
+		}
+		System.out.println(" -> Success! 9 callers, " + server.getRequestCount() + " request");
+	}
+
+//-----------------------Test 7: Errors reach every waiter, cancelling one waiter keeps the call-----------------
+
+	@Test
+	@DisplayName("Test 7: Coalesced errors and cancellation")
+	void testCoalescedErrorsAndCancellation() throws Exception {
+		System.out.println("\nTest 7: Shared error and partial cancellation");
+		
+		// CASE A: A shared failure is delivered to both waiters
+		server.enqueue(new MockResponse().setResponseCode(503).setBodyDelay(300, TimeUnit.MILLISECONDS));
+		CompletableFuture<List<MealLabInfo>> a = service.searchMealsByNameAsync("Arrabiata");
+		CompletableFuture<List<MealLabInfo>> b = service.searchMealsByNameAsync("Arrabiata");
+		ExecutionException errorA = assertThrows(ExecutionException.class, () -> a.get(5, TimeUnit.SECONDS));
+		ExecutionException errorB = assertThrows(ExecutionException.class, () -> b.get(5, TimeUnit.SECONDS));
+		assertEquals(503, ((MealLabException) errorA.getCause()).getStatusCode());
+		assertSame(errorA.getCause(), errorB.getCause());
+		
+		// CASE B: One waiter cancels, the other still gets the meal from the same call
+		server.enqueue(new MockResponse().setBody(ARRABIATA_JSON).setBodyDelay(300, TimeUnit.MILLISECONDS));
+		CompletableFuture<List<MealLabInfo>> cancelled = service.searchMealsByNameAsync("Arrabiata");
+		CompletableFuture<List<MealLabInfo>> kept = service.searchMealsByNameAsync("Arrabiata");
+		cancelled.cancel(true);
+		assertEquals(1, kept.get(5, TimeUnit.SECONDS).size());
+		assertEquals(2, server.getRequestCount());
+		
+		System.out.println(" -> Success! Errors shared, partial cancel kept the call alive.");
+	}
+
+//----------------------------Test 8: Bulk lookup with bounded parallelism------------------------------------
+
+	@Test
+	@DisplayName("Test 8: Bulk ID lookup")
+	void testBulkLookup() {
+		System.out.println("\nTest 8: 12 IDs (with duplicates, an unknown and a failing one), 3 at a time");
+		
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+				int now = running.incrementAndGet();
+				maxRunning.accumulateAndGet(now, Math::max);
+				Thread.sleep(50);
+				running.decrementAndGet();
+				
+				String id = request.getRequestUrl().queryParameter("i");
+				if ("500".equals(id)) {
+					return new MockResponse().setResponseCode(500);
+				}
+				if ("404".equals(id)) {
+					return new MockResponse().setBody(EMPTY_JSON);
+				}
+				return new MockResponse().setBody(ARRABIATA_JSON.replace("52771", id));
+			}
+		});
+		
+		List<String> ids = Arrays.asList("1", "2", "3", "2", "404", "4", "500", "5", "1", "6", "7", "8");
+		List<MealLookupResult> results = service.getMealDetailsByIds(ids, 3);
+		
+		// Duplicates removed, order kept
+		assertEquals(10, results.size());
+		assertEquals("1", results.get(0).getId());
+		assertEquals("404", results.get(3).getId());
+		assertEquals("8", results.get(9).getId());
+		
+		// Per-ID outcome
+		assertEquals("3", results.get(2).getMeal().getId());
+		assertFalse(results.get(3).isFound());
+		assertFalse(results.get(3).isFailed());
+		assertTrue(results.get(5).isFailed());
+		assertEquals(500, ((MealLabException) results.get(5).getError()).getStatusCode());
+		
+		assertEquals(10, server.getRequestCount());
+		assertTrue(maxRunning.get() <= 3, "Never more than 3 requests at once, was " + maxRunning.get());
+		
+		System.out.println(" -> Success! Max parallel requests: " + maxRunning.get());
+	}
+
+//----------------------------Test 9: Streaming meals to a consumer------------------------------------------
+
+	@Test
+	@DisplayName("Test 9: Streaming search")
+	void testStreamingSearch() throws Exception {
+		System.out.println("\nTest 9: Meals are handed over one by one");
+		
+		String meal = ARRABIATA_JSON.substring(ARRABIATA_JSON.indexOf('[') + 1, ARRABIATA_JSON.lastIndexOf(']'));
+		String threeMeals = "{\"meals\":[" + meal + "," + meal.replace("52771", "52772") + ","
+				+ meal.replace("52771", "52773") + "],\"extra\":{\"ignored\":true}}";
+		server.enqueue(new MockResponse().setBody(threeMeals));
+		server.enqueue(new MockResponse().setBody(EMPTY_JSON));
+		
+		List<String> received = new ArrayList<>();
+		int count = service.streamMealsByName("a", m -> received.add(m.getId()));
+		
+		assertEquals(3, count);
+		assertEquals(Arrays.asList("52771", "52772", "52773"), received);
+		
+		// {"meals":null} delivers nothing
+		assertEquals(0, service.streamMealsByIngredient("nothing", m -> fail("No meal expected")));
+		
+		System.out.println(" -> Success! Streamed: " + received);
+	}
+
+//---------------------------Test 10: Shared client and close() lifecycle-------------------------------------
+
+	@Test
+	@DisplayName("Test 10: Shared client lifecycle")
+	void testSharedClientLifecycle() throws Exception {
+		System.out.println("\nTest 10: Two services share one connection pool");
+		
+		String apiUrl = server.url("/api/json/v1/").toString();
+		OkHttpClient shared;
+		
+		try (MealLabServices owner = new MealLabServices.Builder(apiUrl, apiKey)
+				.connectionPool(2, Duration.ofSeconds(30))
+				.build()) {
+			shared = owner.getHttpClient();
+			
+			// A second service on the same client: closing it must not close the pool
+			MealLabServices guest = new MealLabServices.Builder(apiUrl, apiKey).client(shared).build();
+			assertSame(shared, guest.getHttpClient());
+			server.enqueue(new MockResponse().setBody(ARRABIATA_JSON));
+			guest.searchMealsByName("Arrabiata");
+			guest.close();
+			assertFalse(shared.dispatcher().executorService().isShutdown());
+			
+			server.enqueue(new MockResponse().setBody(ARRABIATA_JSON));
+			assertEquals(1, owner.searchMealsByNameAsync("Arrabiata").get(5, TimeUnit.SECONDS).size());
+			assertEquals(1, shared.connectionPool().connectionCount(), "Both requests should reuse one connection");
+		}
+		
+		// The owner closed its client on leaving the try block
+		assertTrue(shared.dispatcher().executorService().isShutdown());
+		assertEquals(0, shared.connectionPool().connectionCount());
+		
+		System.out.println(" -> Success! One pool, closed by its owner only.");
+	}
+
+//---------------------------Test 11: Disk cache survives a restart and revalidates-----------------------------
+
+	@Test
+	@DisplayName("Test 11: Disk cache with ETag revalidation")
+	void testDiskCacheRevalidation(@TempDir File cacheDir) throws Exception {
+		System.out.println("\nTest 11: Disk cache across two service instances");
+		
+		String apiUrl = server.url("/api/json/v1/").toString();
+		
+		// 1st run: the server sends an ETag and no max-age, we override lookup.php to 1 hour
+		server.enqueue(new MockResponse().setBody(ARRABIATA_JSON).setHeader("ETag", "\"v1\""));
+		try (MealLabServices firstRun = new MealLabServices.Builder(apiUrl, apiKey)
+				.diskCache(cacheDir, 1024 * 1024)
+				.cacheMaxAge(MealLabServices.LOOKUP_ENDPOINT, Duration.ofHours(1))
+				.build()) {
+			firstRun.getMealDetailsById("52771");
+		}
+		
+		// 2nd run (restart): fresh entry on disk, no network at all
+		try (MealLabServices secondRun = new MealLabServices.Builder(apiUrl, apiKey)
+				.diskCache(cacheDir, 1024 * 1024)
+				.cacheMaxAge(MealLabServices.LOOKUP_ENDPOINT, Duration.ofHours(1))
+				.build()) {
+			assertEquals("52771", secondRun.getMealDetailsById("52771").getId());
+			assertEquals(1, server.getRequestCount());
+		}
+		
+		// 3rd run: search.php honors the server header (max-age=0), so it revalidates with If-None-Match
+		server.enqueue(new MockResponse().setBody(ARRABIATA_JSON).setHeader("ETag", "\"s1\"")
+				.setHeader("Cache-Control", "max-age=0"));
+		server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"s1\""));
+		try (MealLabServices thirdRun = new MealLabServices.Builder(apiUrl, apiKey)
+				.diskCache(cacheDir, 1024 * 1024)
+				.build()) {
+			thirdRun.searchMealsByName("Arrabiata");
+			assertEquals(1, thirdRun.searchMealsByName("Arrabiata").size(), "304 should be answered from disk");
+		}
+		server.takeRequest();
+		server.takeRequest();
+		RecordedRequest conditional = server.takeRequest();
+		assertEquals("\"s1\"", conditional.getHeader("If-None-Match"));
+		
+		System.out.println(" -> Success! Requests sent: " + server.getRequestCount());
+	}
+
+//-----------------------------------Test 12: Serve stale on error--------------------------------------------
+
+	static final String ERROR_PAGE = "<html><body><h1>503 Service Unavailable</h1></body></html>";
+	
+	@Test
+	@DisplayName("Test 12: Serve stale on error")
+	void testServeStaleOnError(@TempDir File cacheDir) throws Exception {
+		System.out.println("\nTest 12: Expired disk entry is used when the server fails");
+		
+		try (MealLabServices staleService = new MealLabServices.Builder(server.url("/api/json/v1/").toString(), apiKey)
+				.diskCache(cacheDir, 1024 * 1024)
+				.cacheMaxAge(MealLabServices.SEARCH_ENDPOINT, Duration.ZERO)
+				.serveStaleOnError(Duration.ofDays(7))
+				.build()) {
+			
+			server.enqueue(new MockResponse().setBody(ARRABIATA_JSON));
+			// Error pages with a body, as real 503s usually have
+			server.enqueue(new MockResponse().setResponseCode(503).setBody(ERROR_PAGE));
+			server.enqueue(new MockResponse().setResponseCode(503).setBody(ERROR_PAGE));
+			
+			staleService.searchMealsByName("Arrabiata");
+			List<MealLabInfo> stale = staleService.searchMealsByName("Arrabiata");
+			assertEquals("52771", stale.get(0).getId());
+			
+			// Nothing cached for this term: the 503 still reaches the caller
+			MealLabException error = assertThrows(MealLabException.class, () -> staleService.searchMealsByName("Unknown"));
+			assertEquals(503, error.getStatusCode());
+		}
+		System.out.println(" -> Success! Stale data served during the outage.");
+	}
+
+//------------------------------Test 13: Autocomplete fed by responses------------------------------------------
+
+	@Test
+	@DisplayName("Test 13: Typeahead fed by results and the ingredient list")
+	void testTypeaheadFeeding() throws Exception {
+		System.out.println("\nTest 13: Names from responses become suggestions");
+		
+		TypeaheadIndex typeahead = new TypeaheadIndex();
+		try (MealLabServices typeaheadService = new MealLabServices.Builder(server.url("/api/json/v1/").toString(), apiKey)
+				.typeahead(typeahead)
+				.build()) {
+			server.enqueue(new MockResponse().setBody(ARRABIATA_JSON));
+			server.enqueue(new MockResponse().setBody("{\"meals\":[{\"idIngredient\":\"1\",\"strIngredient\":\"Chicken\"},"
+					+ "{\"idIngredient\":\"2\",\"strIngredient\":\"Chicken Breast\",\"strDescription\":null}]}"));
+			
+			typeaheadService.searchMealsByName("Arrabiata");
+			List<String> ingredients = typeaheadService.listIngredients();
+			
+			assertEquals(Arrays.asList("Chicken", "Chicken Breast"), ingredients);
+			server.takeRequest();
+			assertEquals("/api/json/v1/1/list.php?i=list", server.takeRequest().getPath());
+		}
+		
+		assertEquals("Spicy Arrabiata Penne", typeahead.suggest("arrabiatta", 5).get(0));
+		assertEquals("Chicken Breast", typeahead.suggest("chicken_brest", 5).get(0));
+		assertTrue(typeahead.suggest("garl", 5).contains("garlic"));
+		
+		System.out.println(" -> Success! Known names: " + typeahead.size());
+	}
+
+//-------------------------Test 14: Canonical URLs and cached empty results----------------------------------
+
+	@Test
+	@DisplayName("Test 14: Canonical requests and negative caching")
+	void testCanonicalRequestsAndNegativeCache() throws Exception {
+		System.out.println("\nTest 14: Spelling variants share one request, misses are cached");
+		
+		try (MealLabServices cachedService = new MealLabServices.Builder(server.url("/api/json/v1/").toString(), apiKey)
+				.cache(new InMemoryMealCache(100, Duration.ofMinutes(5)))
+				.build()) {
+			server.enqueue(new MockResponse().setBody(ARRABIATA_JSON));
+			server.enqueue(new MockResponse().setBody(EMPTY_JSON));
+			
+			cachedService.searchMealsByIngredient("  Chicken   Breast ");
+			cachedService.searchMealsByIngredient("chicken_breast");
+			cachedService.searchMealsByIngredient("CHICKEN BREAST");
+			assertEquals(1, server.getRequestCount());
+			assertEquals("/api/json/v1/1/filter.php?i=chicken_breast", server.takeRequest().getPath());
+			
+			// A term that finds nothing is asked only once
+			assertTrue(cachedService.searchMealsByName("Xyzzy").isEmpty());
+			assertTrue(cachedService.searchMealsByName(" xyzzy").isEmpty());
+			assertEquals(2, server.getRequestCount());
+			assertEquals("/api/json/v1/1/search.php?s=xyzzy", server.takeRequest().getPath());
+		}
+		System.out.println(" -> Success! Requests sent: " + server.getRequestCount());
+	}
+
+//-------------------------Test 15: Asynchronous streaming and cancellation----------------------------------
+
+	@Test
+	@DisplayName("Test 15: Asynchronous streaming search")
+	void testStreamingSearchAsync() throws Exception {
+		System.out.println("\nTest 15: Meals are streamed without blocking, a cancelled stream stops");
+		
+		try (MealLabServices cachedService = new MealLabServices.Builder(server.url("/api/json/v1/").toString(), apiKey)
+				.cache(new InMemoryMealCache(100, Duration.ofMinutes(5)))
+				.build()) {
+			server.enqueue(new MockResponse().setBody(ARRABIATA_JSON));
+			
+			List<String> received = new ArrayList<>();
+			CompletableFuture<Integer> stream = cachedService.streamMealsByNameAsync("Arrabiata", m -> received.add(m.getId()));
+			assertEquals(1, stream.get(5, TimeUnit.SECONDS));
+			assertEquals(Arrays.asList("52771"), received);
+			
+			// The same search again is streamed from the cache, already complete
+			CompletableFuture<Integer> cached = cachedService.streamMealsByNameAsync("arrabiata", m -> received.add(m.getId()));
+			assertTrue(cached.isDone());
+			assertEquals(2, received.size());
+			assertEquals(1, server.getRequestCount());
+			
+			// A cancelled stream cancels its call: nothing is delivered and the next search goes through
+			server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+			CompletableFuture<Integer> slow = cachedService.streamMealsByIngredientAsync("garlic", m -> fail("Cancelled"));
+			server.takeRequest(5, TimeUnit.SECONDS);
+			server.takeRequest(5, TimeUnit.SECONDS);
+			assertTrue(slow.cancel(true));
+			
+			server.enqueue(new MockResponse().setBody(EMPTY_JSON));
+			assertEquals(0, cachedService.streamMealsByIngredientAsync("olive oil", m -> fail("No meal expected"))
+					.get(5, TimeUnit.SECONDS));
+		}
+		System.out.println(" -> Success! Requests sent: " + server.getRequestCount());
+	}
+
+//----------------------------------Test 16: Connection warm-up---------------------------------------------
+
+	@Test
+	@DisplayName("Test 16: Connection warm-up")
+	void testWarmUp() throws Exception {
+		System.out.println("\nTest 16: Warm-up opens a connection the first query reuses");
+		
+		server.enqueue(new MockResponse().setResponseCode(404));
+		server.enqueue(new MockResponse().setBody(ARRABIATA_JSON));
+		
+		assertTrue(service.warmUp().get(5, TimeUnit.SECONDS));     // Any answer counts, even a 404
+		RecordedRequest head = server.takeRequest();
+		assertEquals("HEAD", head.getMethod());
+		
+		// The search is the second request on the connection the warm-up opened
+		service.searchMealsByName("Arrabiata");
+		RecordedRequest search = server.takeRequest();
+		assertEquals(0, head.getSequenceNumber());
+		assertEquals(1, search.getSequenceNumber());
+		assertEquals(1, service.getHttpClient().connectionPool().connectionCount());
+		
+		// An unreachable server is reported, not thrown
+		server.shutdown();
+		assertFalse(service.warmUp().get(5, TimeUnit.SECONDS));
+		
+		System.out.println(" -> Success! Connections opened: " + service.getHttpClient().connectionPool().connectionCount());
+	}
+
+//----------------------------------Test 17: Request rate limit----------------------------------------------
+
+	@Test
+	@DisplayName("Test 17: Rate limit")
+	void testRateLimit() throws Exception {
+		System.out.println("\nTest 17: Network requests are spaced, cache hits are not");
+		
+		try (MealLabServices limitedService = new MealLabServices.Builder(server.url("/api/json/v1/").toString(), apiKey)
+				.cache(new InMemoryMealCache(100, Duration.ofMinutes(5)))
+				.rateLimit(10)
+				.build()) {
+			for (int i = 0; i < 4; i++) {
+				server.enqueue(new MockResponse().setBody(ARRABIATA_JSON));
+			}
+			
+			long start = System.nanoTime();
+			for (String id : Arrays.asList("1", "2", "3", "4")) {
+				limitedService.getMealDetailsById(id);
+			}
+			long limitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			assertTrue(limitedMillis >= 250, "4 requests at 10/s take about 300 ms, took " + limitedMillis);
+			
+			start = System.nanoTime();
+			for (String id : Arrays.asList("1", "2", "3", "4")) {
+				limitedService.getMealDetailsById(id);
+			}
+			long cachedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			assertTrue(cachedMillis < 100, "Cache hits must not wait, took " + cachedMillis);
+			assertEquals(4, server.getRequestCount());
+			
+			System.out.println(" -> Success! 4 requests: " + limitedMillis + " ms, 4 cache hits: " + cachedMillis + " ms");
+		}
+	}
+}
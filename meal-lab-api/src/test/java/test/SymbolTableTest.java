@@ -0,0 +1,76 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.model.SymbolTable;
+
+// Tests for the shared symbol dictionary behind MealLabInfo's category, area and ingredients
+class SymbolTableTest {
+	
+//-------------------------------------Test 1: IDs and shared values-------------------------------------------
+
+	@Test
+	void testInternAndLookup() {
+		System.out.println("Test 1: Interning values");
+		
+		int id = SymbolTable.intern("Symbol Test Value");
+		assertEquals(id, SymbolTable.intern(new String("Symbol Test Value")));
+		assertEquals(id, SymbolTable.lookup("Symbol Test Value"));
+		assertEquals("Symbol Test Value", SymbolTable.symbol(id));
+		assertTrue(id < SymbolTable.size());
+		
+		assertEquals(SymbolTable.NONE, SymbolTable.intern(null));
+		assertNull(SymbolTable.symbol(SymbolTable.NONE));
+		assertEquals(SymbolTable.NONE, SymbolTable.lookup("Never Interned Value"));
+		
+		// Meals store IDs, their getters return the shared instance
+		MealLabInfo a = new MealLabInfo("1", "A", new String("Dessert"), "x", "Greek", "t", new String[] { new String("Sugar") }, new String[] { "" });
+		MealLabInfo b = new MealLabInfo("2", "B", new String("Dessert"), "x", "Greek", "t", new String[] { new String("Sugar") }, new String[] { "" });
+		assertSame(a.getCategory(), b.getCategory());
+		assertSame(a.ingredientAt(0), b.getIngredients().get(0));
+		assertEquals(a.getCategoryId(), b.getCategoryId());
+		assertTrue(b.hasIngredientId(SymbolTable.lookup("Sugar")));
+		
+		System.out.println(" -> Success! " + SymbolTable.size() + " symbols");
+	}
+
+//-------------------------------------Test 2: Interning from many threads------------------------------------
+
+	@Test
+	void testConcurrentIntern() throws Exception {
+		System.out.println("\nTest 2: 8 threads intern the same 2.000 values");
+		
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<int[]>> results = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				results.add(pool.submit(() -> {
+					int[] ids = new int[2000];
+					for (int i = 0; i < ids.length; i++) {
+						ids[i] = SymbolTable.intern("concurrent-" + i);
+					}
+					return ids;
+				}));
+			}
+			int[] first = results.get(0).get();
+			for (Future<int[]> result : results) {
+				assertArrayEquals(first, result.get());       // Every thread got the same ID per value
+			}
+			for (int i = 0; i < first.length; i++) {
+				assertEquals("concurrent-" + i, SymbolTable.symbol(first[i]));
+			}
+		} finally {
+			pool.shutdown();
+		}
+		System.out.println(" -> Success!");
+	}
+}
@@ -0,0 +1,84 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import karanika.meallab.index.TypeaheadIndex;
+import karanika.meallab.model.MealLabInfo;
+
+// Unit tests for the autocomplete (prefixes, typos, ranking), plus a timing per keystroke
+// that is left out of the normal test run (mvn test -Pbenchmark)
+class TypeaheadIndexTest {
+	
+	private TypeaheadIndex index;
+	
+	@BeforeEach
+	void setUp() {
+		index = new TypeaheadIndex();
+		index.addMeals(Arrays.asList(
+				new MealLabInfo("52771", "Spicy Arrabiata Penne", "Vegetarian", "", "Italian", "",
+						new String[] { "penne rigate", "olive oil", "garlic" }, new String[] { "", "", "" })));
+		for (String name : new String[] { "Chicken", "Chicken Breast", "Chicken Thighs", "Chickpeas", "Chilli Powder" }) {
+			index.add(name, 1);
+		}
+		index.add("Chicken", 5);                                  // Seen more often
+	}
+
+//-----------------------------------------Test 1: Prefixes and typos------------------------------------------
+
+	@Test
+	void testSuggestions() {
+		System.out.println("Test 1: Prefix completion and typos");
+		
+		List<String> chi = index.suggest("chi", 10);
+		assertEquals("Chicken", chi.get(0), "Most seen name first");
+		assertTrue(chi.containsAll(Arrays.asList("Chicken Breast", "Chickpeas", "Chilli Powder")));
+		
+		assertEquals("Spicy Arrabiata Penne", index.suggest("arrabiatta", 5).get(0));
+		assertEquals("Chicken Breast", index.suggest("chicken_brest", 5).get(0));
+		// Later words are keys too, a match at the start of a name ranks first
+		assertEquals(Arrays.asList("penne rigate", "Spicy Arrabiata Penne"), index.suggest("Penne", 5));
+		
+		assertTrue(index.suggest("xyz", 5).isEmpty());
+		assertEquals(2, index.suggest("chi", 2).size());
+		
+		System.out.println(" -> Success! " + index.suggest("chiken", 3));
+	}
+
+//--------------------------------------Benchmark: Time per keystroke---------------------------------------
+
+	@Test
+	@Tag("benchmark")
+	void benchmarkKeystrokes() {
+		System.out.println("\nBenchmark: 5.000 names, one suggestion per keystroke");
+		
+		String[] words = { "chicken", "beef", "lamb", "pork", "tofu", "rice", "noodle", "curry", "soup", "salad" };
+		TypeaheadIndex big = new TypeaheadIndex();
+		for (int i = 0; i < 5_000; i++) {
+			big.add(words[i % 10] + " " + words[(i / 10) % 10] + " " + words[(i / 100) % 10] + " " + i, 1);
+		}
+		
+		String typed = "chiken curyy";
+		for (int i = 0; i < 200; i++) {                           // Warm up
+			big.suggest(typed.substring(0, 1 + i % typed.length()), 10);
+		}
+		long start = System.nanoTime();
+		int keystrokes = 0;
+		for (int round = 0; round < 50; round++) {
+			for (int end = 1; end <= typed.length(); end++) {
+				big.suggest(typed.substring(0, end), 10);
+				keystrokes++;
+			}
+		}
+		double micros = (System.nanoTime() - start) / 1_000.0 / keystrokes;
+		assertFalse(big.suggest(typed, 10).isEmpty());
+		
+		System.out.printf(" -> %.1f microseconds per keystroke%n", micros);
+	}
+}
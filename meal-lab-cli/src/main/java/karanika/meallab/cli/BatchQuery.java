@@ -0,0 +1,99 @@
+package karanika.meallab.cli;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import karanika.meallab.exception.MealLabException;
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.services.MealLabServices;
+
+/**
+ * One line of a batch input file, e.g.
+ *   {"id": "q1", "type": "name", "query": "Arrabiata"}
+ *   {"type": "ingredient", "query": "chicken_breast"}
+ *   {"id": "q3", "type": "id", "query": "52772"}
+ * "id" is optional and copied to the result, so callers can match results to their own records.
+ */
+
+public final class BatchQuery {
+
+	public enum Type {
+		NAME, INGREDIENT, ID
+	}
+
+	private final String id;
+	private final Type type;
+	private final String query;
+
+//----------------------------------------Constructor-----------------------------------------
+
+	public BatchQuery(String id, Type type, String query) {
+		if (type == null) {
+			throw new IllegalArgumentException("Query type cannot be null");
+		}
+		if (query == null || query.trim().isEmpty()) {
+			throw new IllegalArgumentException("Query cannot be null or empty");
+		}
+		this.id = id;
+		this.type = type;
+		this.query = query;
+	}
+
+	// Parses one JSONL line. A malformed line throws IllegalArgumentException with the reason.
+	public static BatchQuery parse(String line, ObjectMapper mapper) {
+		JsonNode node;
+		try {
+			node = mapper.readTree(line);
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+		}
+		if (node == null || !node.isObject()) {
+			throw new IllegalArgumentException("Each line must be a JSON object");
+		}
+
+		String typeName = node.path("type").asText("");
+		Type type;
+		try {
+			type = Type.valueOf(typeName.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown query type '" + typeName + "' (name, ingredient or id)");
+		}
+		JsonNode id = node.get("id");
+		return new BatchQuery(id == null || id.isNull() ? null : id.asText(), type, node.path("query").asText(null));
+	}
+
+//-------------------------------------------Getters--------------------------------------------
+
+	public String getId() {
+		return id;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getQuery() {
+		return query;
+	}
+
+//-------------------------------------------Execution------------------------------------------
+
+	// Runs the query (blocking). A lookup of an unknown ID gives an empty list.
+	public List<MealLabInfo> execute(MealLabServices services) throws IOException, MealLabException {
+		switch (type) {
+			case NAME:
+				return services.searchMealsByName(query);
+			case INGREDIENT:
+				return services.searchMealsByIngredient(query);
+			default:
+				MealLabInfo meal = services.getMealDetailsById(query);
+				return meal == null ? Collections.emptyList() : Collections.singletonList(meal);
+		}
+	}
+}
@@ -0,0 +1,291 @@
+package karanika.meallab.cli;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import karanika.meallab.cache.InMemoryMealCache;
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.services.MealLabServices;
+
+/**
+ * Headless batch runner: reads queries as JSONL (see BatchQuery), runs them through MealLabServices
+ * with a fixed number of worker threads and writes one JSONL result per query:
+ *   {"line":1,"id":"q1","type":"name","query":"Arrabiata","status":"ok","latencyMs":84.2,"count":1,"meals":[...]}
+ *   {"line":2,"status":"error","error":"Unknown query type 'x' (name, ingredient or id)"}
+ * Results are written in completion order; "line" is the line of the query in the input.
+ * The input is read as the workers free up (at most READ_AHEAD queries per worker wait in memory),
+ * and latencies go into a fixed-size histogram (LatencyStats), so files of any length run in constant
+ * memory. Throughput and latency percentiles go to stderr.
+ *
+ * Usage: BatchQueryRunner [--input FILE] [--output FILE] [--concurrency N] [--rate REQUESTS_PER_SECOND]
+ *                         [--cache-size N] [--disk-cache DIR] [--disk-cache-mb N] [--api-url URL] [--api-key KEY]
+ * Exit code: 0 all queries succeeded, 1 some failed or were rejected, 2 wrong arguments or an I/O error.
+ */
+
+public class BatchQueryRunner {
+
+	static final String DEFAULT_API_URL = "https://www.themealdb.com/api/json/v1/";
+	static final String DEFAULT_API_KEY = "1";
+	static final int READ_AHEAD = 4;
+
+	private final MealLabServices services;
+	private final int concurrency;
+	private final ObjectMapper mapper = new ObjectMapper();
+
+//----------------------------------------Constructor-----------------------------------------
+
+	public BatchQueryRunner(MealLabServices services, int concurrency) {
+		if (services == null) {
+			throw new IllegalArgumentException("Services cannot be null");
+		}
+		if (concurrency < 1) {
+			throw new IllegalArgumentException("Concurrency limit must be at least 1");
+		}
+		this.services = services;
+		this.concurrency = concurrency;
+	}
+
+//-------------------------------------------Batch--------------------------------------------
+
+	// Runs every query of the input and writes the results. Blank lines are skipped.
+	public LatencyStats run(BufferedReader input, Writer output) throws IOException {
+		LatencyStats stats = new LatencyStats();
+		AtomicReference<IOException> writeError = new AtomicReference<>();
+		Semaphore window = new Semaphore(concurrency * READ_AHEAD);
+
+		ExecutorService pool = Executors.newFixedThreadPool(concurrency, runnable -> {
+			Thread thread = new Thread(runnable, "batch-query");
+			thread.setDaemon(true);
+			return thread;
+		});
+		stats.start();
+		try {
+			String line;
+			long number = 0;
+			while ((line = input.readLine()) != null && writeError.get() == null) {
+				number++;
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				window.acquire();
+				long lineNumber = number;
+				String text = line;
+				pool.execute(() -> {
+					try {
+						write(output, process(lineNumber, text, stats));
+					} catch (IOException e) {
+						writeError.compareAndSet(null, e);
+					} finally {
+						window.release();
+					}
+				});
+			}
+			pool.shutdown();
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Batch interrupted");
+		} finally {
+			pool.shutdownNow();
+			stats.stop();
+		}
+
+		if (writeError.get() != null) {
+			throw writeError.get();
+		}
+		output.flush();
+		return stats;
+	}
+
+//---------------------------------------Private Methods----------------------------------------
+
+	// Runs one line and builds its result record (never throws, errors become "status":"error")
+	private ObjectNode process(long lineNumber, String line, LatencyStats stats) {
+		ObjectNode record = mapper.createObjectNode();
+		record.put("line", lineNumber);
+
+		BatchQuery query;
+		try {
+			query = BatchQuery.parse(line, mapper);
+		} catch (IllegalArgumentException e) {
+			stats.recordRejected();
+			return record.put("status", "error").put("error", e.getMessage());
+		}
+		if (query.getId() != null) {
+			record.put("id", query.getId());
+		}
+		record.put("type", query.getType().name().toLowerCase(Locale.ROOT));
+		record.put("query", query.getQuery());
+
+		long start = System.nanoTime();
+		try {
+			List<MealLabInfo> meals = query.execute(services);
+			long latency = System.nanoTime() - start;
+			stats.record(latency, true);
+			record.put("status", "ok");
+			record.put("latencyMs", Math.round(latency / 1e4) / 100.0);
+			record.put("count", meals.size());
+			record.set("meals", mapper.valueToTree(meals));
+		} catch (Exception e) {
+			long latency = System.nanoTime() - start;
+			stats.record(latency, false);
+			record.put("status", "error");
+			record.put("latencyMs", Math.round(latency / 1e4) / 100.0);
+			record.put("error", e.getMessage() != null ? e.getMessage() : e.toString());
+		}
+		return record;
+	}
+
+	// One record per line; the lock keeps lines of parallel workers from mixing
+	private void write(Writer output, ObjectNode record) throws IOException {
+		String json = mapper.writeValueAsString(record);
+		synchronized (output) {
+			output.write(json);
+			output.write('\n');
+		}
+	}
+
+//--------------------------------------------Main--------------------------------------------
+
+	public static void main(String[] args) {
+		System.exit(runCommand(args));
+	}
+
+	// The command line without System.exit (returns the exit code). System.in / System.out are
+	// used without closing them, so it can also be called in-process.
+	public static int runCommand(String... args) {
+		String inputPath = null;
+		String outputPath = null;
+		int concurrency = 4;
+		double rate = 0;
+		long cacheSize = 10_000;
+		String diskCache = null;
+		long diskCacheMb = 100;
+		String apiUrl = DEFAULT_API_URL;
+		String apiKey = DEFAULT_API_KEY;
+
+		try {
+			for (int i = 0; i < args.length; i++) {
+				String option = args[i];
+				if ("--help".equals(option)) {
+					printUsage();
+					return 0;
+				}
+				if (i + 1 >= args.length) {
+					throw new IllegalArgumentException("Missing value for " + option);
+				}
+				String value = args[++i];
+				switch (option) {
+					case "--input": inputPath = value; break;
+					case "--output": outputPath = value; break;
+					case "--concurrency": concurrency = Integer.parseInt(value); break;
+					case "--rate": rate = Double.parseDouble(value); break;
+					case "--cache-size": cacheSize = Long.parseLong(value); break;
+					case "--disk-cache": diskCache = value; break;
+					case "--disk-cache-mb": diskCacheMb = Long.parseLong(value); break;
+					case "--api-url": apiUrl = value; break;
+					case "--api-key": apiKey = value; break;
+					default: throw new IllegalArgumentException("Unknown option " + option);
+				}
+			}
+			if (concurrency < 1 || rate < 0 || cacheSize < 0 || diskCacheMb < 1) {
+				throw new IllegalArgumentException("Concurrency, cache and disk cache sizes must be positive, rate not negative");
+			}
+		} catch (IllegalArgumentException e) {        // NumberFormatException included
+			System.err.println("Error: " + e.getMessage());
+			printUsage();
+			return 2;
+		}
+
+		MealLabServices.Builder builder = new MealLabServices.Builder(apiUrl, apiKey)
+				.maxConcurrentLookups(concurrency)
+				.connectionPool(concurrency, Duration.ofMinutes(5));
+		InMemoryMealCache cache = null;
+		if (cacheSize > 0) {
+			cache = new InMemoryMealCache(cacheSize, Duration.ofHours(1));
+			builder.cache(cache);
+		}
+		if (diskCache != null) {
+			builder.diskCache(new File(diskCache), diskCacheMb * 1024 * 1024);
+		}
+		if (rate > 0) {
+			builder.rateLimit(rate);
+		}
+
+		try (MealLabServices services = builder.build();
+				BufferedReader input = inputPath == null || "-".equals(inputPath)
+						? new BufferedReader(new InputStreamReader(new FilterInputStream(System.in) {
+							@Override
+							public void close() {
+								// System.in stays open
+							}
+						}, StandardCharsets.UTF_8))
+						: Files.newBufferedReader(new File(inputPath).toPath(), StandardCharsets.UTF_8);
+				Writer output = outputPath == null || "-".equals(outputPath)
+						? new BufferedWriter(new OutputStreamWriter(new NonClosingOutputStream(System.out), StandardCharsets.UTF_8))
+						: Files.newBufferedWriter(new File(outputPath).toPath(), StandardCharsets.UTF_8)) {
+
+			LatencyStats stats = new BatchQueryRunner(services, concurrency).run(input, output);
+
+			System.err.println(stats.summary());
+			if (cache != null) {
+				System.err.println("cache: " + cache.stats());
+			}
+			return stats.getFailedCount() == 0 && stats.getRejectedCount() == 0 ? 0 : 1;
+		} catch (IOException e) {
+			System.err.println("Error: " + e.getMessage());
+			return 2;
+		}
+	}
+
+	// Flushes instead of closing (System.out), and passes arrays on whole rather than byte by byte
+	private static final class NonClosingOutputStream extends FilterOutputStream {
+
+		NonClosingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			out.write(bytes, offset, length);
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.flush();
+		}
+	}
+
+	private static void printUsage() {
+		System.err.println("Usage: BatchQueryRunner [--input FILE] [--output FILE] [--concurrency N] [--rate REQUESTS_PER_SECOND]\n"
+				+ "                        [--cache-size N] [--disk-cache DIR] [--disk-cache-mb N] [--api-url URL] [--api-key KEY]\n"
+				+ "  Input: one JSON query per line, e.g. {\"id\":\"q1\",\"type\":\"name\",\"query\":\"Arrabiata\"}\n"
+				+ "         (type: name, ingredient or id). Without --input / --output stdin and stdout are used.\n"
+				+ "  --concurrency  queries run in parallel (default 4)\n"
+				+ "  --rate         at most this many HTTP requests per second (default: no limit)\n"
+				+ "  --cache-size   in-memory response cache weight, 0 = off (default 10000)\n"
+				+ "  --disk-cache   HTTP cache directory, kept between runs (size: --disk-cache-mb, default 100)");
+	}
+}
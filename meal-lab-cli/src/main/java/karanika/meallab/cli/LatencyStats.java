@@ -0,0 +1,133 @@
+package karanika.meallab.cli;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of a batch run. Every executed query records its latency (failed ones too,
+ * a timeout is a latency as well); lines that could not even be parsed only count as rejected.
+ * Latencies go into a fixed log-bucketed histogram (HdrHistogram style): values below 128 ns have a
+ * bucket each, above that every power of two is split into 64 linear buckets. So memory stays the same
+ * for any number of queries, and a percentile (nearest rank, reported as the middle of its bucket)
+ * is within 1% of the exact value; the maximum is exact. Thread-safe.
+ */
+
+public final class LatencyStats {
+
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int HALF_SUB_BUCKETS = 1 << (SUB_BUCKET_BITS - 1);          // 64 buckets per power of two
+	private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+
+	private final long[] buckets = new long[BUCKETS];    // Query count per latency range (nanoseconds)
+	private long maxNanos;
+	private int count;
+	private int failed;
+	private int rejected;
+	private long startNanos;
+	private long endNanos;
+
+//-------------------------------------------Recording------------------------------------------
+
+	// Starts (or restarts) the wall clock used for the throughput
+	public synchronized void start() {
+		startNanos = System.nanoTime();
+		endNanos = 0;
+	}
+
+	public synchronized void stop() {
+		endNanos = System.nanoTime();
+	}
+
+	public synchronized void record(long latencyNanos, boolean succeeded) {
+		long nanos = Math.max(0, latencyNanos);
+		buckets[bucketOf(nanos)]++;
+		maxNanos = Math.max(maxNanos, nanos);
+		count++;
+		if (!succeeded) {
+			failed++;
+		}
+	}
+
+	public synchronized void recordRejected() {
+		rejected++;
+	}
+
+//-------------------------------------------Results--------------------------------------------
+
+	public synchronized int getCount() {              // Executed queries
+		return count;
+	}
+
+	public synchronized int getFailedCount() {        // Executed queries that ended with an error
+		return failed;
+	}
+
+	public synchronized int getRejectedCount() {      // Lines that were not a valid query
+		return rejected;
+	}
+
+	// Latency below which the given share of queries finished, e.g. percentileMillis(99) (0 without queries)
+	public synchronized double percentileMillis(double percentile) {
+		if (percentile <= 0 || percentile > 100) {
+			throw new IllegalArgumentException("Percentile must be in (0, 100]");
+		}
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		if (rank >= count) {
+			return maxNanos / 1e6;
+		}
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			seen += buckets[bucket];
+			if (seen >= rank) {
+				long lower = lowestValue(bucket);
+				long middle = lower + (lowestValue(bucket + 1) - 1 - lower) / 2;
+				return Math.min(middle, maxNanos) / 1e6;
+			}
+		}
+		return maxNanos / 1e6;
+	}
+
+	public synchronized double getElapsedSeconds() {
+		long end = endNanos != 0 ? endNanos : System.nanoTime();
+		return (end - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+	}
+
+	// Executed queries per second of wall time
+	public synchronized double getThroughput() {
+		double seconds = getElapsedSeconds();
+		return seconds > 0 ? count / seconds : 0;
+	}
+
+	// Values below 2 x HALF_SUB_BUCKETS have their own bucket; above, the top 7 bits pick the bucket
+	// within the power of two (exponent e), i.e. a bucket is 2^e wide
+	private static int bucketOf(long nanos) {
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos) - (SUB_BUCKET_BITS - 1);
+		if (exponent <= 0) {
+			return (int) nanos;
+		}
+		return exponent * HALF_SUB_BUCKETS + (int) (nanos >>> exponent);
+	}
+
+	private static long lowestValue(int bucket) {
+		if (bucket < 2 * HALF_SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / HALF_SUB_BUCKETS - 1;
+		long subBucket = bucket - (long) exponent * HALF_SUB_BUCKETS;
+		if (exponent >= 63 - SUB_BUCKET_BITS + 1) {
+			return Long.MAX_VALUE;                    // End of the last bucket
+		}
+		return subBucket << exponent;
+	}
+
+	public synchronized String summary() {
+		return String.format(Locale.ROOT,
+				"queries: %d (%d failed, %d rejected) in %.2f s, %.1f queries/s%n"
+				+ "latency ms: p50 %.1f, p90 %.1f, p99 %.1f, max %.1f",
+				count, failed, rejected, getElapsedSeconds(), getThroughput(),
+				percentileMillis(50), percentileMillis(90), percentileMillis(99), percentileMillis(100));
+	}
+}
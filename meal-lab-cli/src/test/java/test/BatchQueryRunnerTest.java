@@ -0,0 +1,191 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import karanika.meallab.cache.InMemoryMealCache;
+import karanika.meallab.cli.BatchQueryRunner;
+import karanika.meallab.cli.LatencyStats;
+import karanika.meallab.services.MealLabServices;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+// Tests for BatchQueryRunner against a local stub server (MockWebServer), no Internet needed
+class BatchQueryRunnerTest {
+
+	private MockWebServer server;
+	private final ObjectMapper mapper = new ObjectMapper();
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicInteger maxRunning = new AtomicInteger();
+
+	static final String INPUT = String.join("\n",
+			"{\"id\":\"q1\",\"type\":\"name\",\"query\":\"Arrabiata\"}",
+			"{\"id\":\"q2\",\"type\":\"ingredient\",\"query\":\"garlic\"}",
+			"",
+			"{\"id\":\"q3\",\"type\":\"id\",\"query\":\"52771\"}",
+			"{\"id\":\"q4\",\"type\":\"id\",\"query\":\"404\"}",
+			"{\"id\":\"q5\",\"type\":\"name\",\"query\":\" arrabiata\"}",
+			"{\"id\":\"q6\",\"type\":\"recipe\",\"query\":\"x\"}",
+			"not json",
+			"{\"id\":\"q8\",\"type\":\"name\",\"query\":\"broken\"}");
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = new MockWebServer();
+		server.setDispatcher(new Dispatcher() {
+			@Override
+			public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(30);                              // Lets queries overlap
+					String value = request.getRequestUrl().queryParameter(request.getPath().contains("search.php") ? "s" : "i");
+					if ("broken".equals(value)) {
+						return new MockResponse().setResponseCode(500);
+					}
+					if ("404".equals(value)) {
+						return new MockResponse().setBody("{\"meals\":null}");
+					}
+					return new MockResponse().setBody("{\"meals\":[{\"idMeal\":\"52771\",\"strMeal\":\"Spicy Arrabiata Penne\","
+							+ "\"strCategory\":\"Vegetarian\",\"strArea\":\"Italian\",\"strIngredient1\":\"garlic\",\"strMeasure1\":\"3 cloves\"}]}");
+				} finally {
+					running.decrementAndGet();
+				}
+			}
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		server.shutdown();
+	}
+
+	private Map<String, JsonNode> byId(String output) throws IOException {
+		Map<String, JsonNode> records = new HashMap<>();
+		for (String line : output.split("\n")) {
+			JsonNode record = mapper.readTree(line);
+			records.put(record.has("id") ? record.get("id").asText() : "line" + record.get("line").asInt(), record);
+		}
+		return records;
+	}
+
+//------------------------------------Test 1: A batch of queries---------------------------------------------
+
+	@Test
+	void testRunBatch() throws Exception {
+		System.out.println("Test 1: Every query gets one result line");
+
+		StringWriter output = new StringWriter();
+		LatencyStats stats;
+		try (MealLabServices services = new MealLabServices.Builder(server.url("/api/json/v1/").toString(), "1")
+				.cache(new InMemoryMealCache(100, Duration.ofMinutes(5)))
+				.build()) {
+			stats = new BatchQueryRunner(services, 3).run(new BufferedReader(new StringReader(INPUT)), output);
+		}
+
+		Map<String, JsonNode> records = byId(output.toString());
+		assertEquals(8, records.size());                           // The blank line is skipped
+
+		JsonNode q1 = records.get("q1");
+		assertEquals("ok", q1.get("status").asText());
+		assertEquals(1, q1.get("line").asInt());
+		assertEquals("name", q1.get("type").asText());
+		assertEquals(1, q1.get("count").asInt());
+		assertEquals("Spicy Arrabiata Penne", q1.get("meals").get(0).get("name").asText());
+		assertEquals("garlic", q1.get("meals").get(0).get("ingredients").get(0).asText());
+		assertTrue(q1.get("latencyMs").asDouble() >= 0);
+
+		assertEquals(0, records.get("q4").get("count").asInt());   // Unknown ID: empty, not an error
+		assertEquals(4, records.get("q3").get("line").asInt());
+		assertEquals("error", records.get("line7").get("status").asText());     // Rejected lines only have their number
+		assertTrue(records.get("line7").get("error").asText().contains("recipe"));
+		assertEquals("error", records.get("line8").get("status").asText());
+		assertEquals("error", records.get("q8").get("status").asText());
+		assertTrue(records.get("q8").get("error").asText().contains("500"));
+
+		// q5 is the same search as q1 after normalization, so 5 queries need a request
+		assertEquals(5, server.getRequestCount());
+
+		assertEquals(6, stats.getCount());
+		assertEquals(1, stats.getFailedCount());
+		assertEquals(2, stats.getRejectedCount());
+		assertTrue(maxRunning.get() > 1 && maxRunning.get() <= 3, "Parallel requests: " + maxRunning.get());
+
+		System.out.println(" -> Success!\n" + stats.summary());
+	}
+
+//------------------------------------Test 2: The command line----------------------------------------------
+
+	@Test
+	void testCommandLine(@TempDir File dir) throws Exception {
+		System.out.println("\nTest 2: Files in, files out, exit code");
+
+		File input = new File(dir, "queries.jsonl");
+		File output = new File(dir, "results.jsonl");
+		Files.writeString(input.toPath(), "{\"type\":\"name\",\"query\":\"Arrabiata\"}\n{\"type\":\"id\",\"query\":\"52771\"}\n",
+				StandardCharsets.UTF_8);
+
+		String apiUrl = server.url("/api/json/v1/").toString();
+		int exitCode = BatchQueryRunner.runCommand("--input", input.getPath(), "--output", output.getPath(),
+				"--concurrency", "2", "--rate", "50", "--api-url", apiUrl);
+		assertEquals(0, exitCode);
+
+		List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+		assertEquals(2, lines.size());
+		for (String line : lines) {
+			assertEquals("ok", mapper.readTree(line).get("status").asText());
+		}
+
+		// A failing query is reported in the exit code, a wrong option too
+		Files.writeString(input.toPath(), "{\"type\":\"name\",\"query\":\"broken\"}\n", StandardCharsets.UTF_8);
+		assertEquals(1, BatchQueryRunner.runCommand("--input", input.getPath(), "--output", output.getPath(), "--api-url", apiUrl));
+		assertEquals(2, BatchQueryRunner.runCommand("--concurrency", "zero"));
+		assertEquals(2, BatchQueryRunner.runCommand("--unknown", "x"));
+		
+		// Without --output the results go to System.out, which stays open afterwards
+		PrintStream stdout = System.out;
+		ByteArrayOutputStream captured = new ByteArrayOutputStream();
+		boolean[] closed = new boolean[1];
+		System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8) {
+			@Override
+			public void close() {
+				closed[0] = true;
+				super.close();
+			}
+		});
+		try {
+			Files.writeString(input.toPath(), "{\"type\":\"id\",\"query\":\"52771\"}\n", StandardCharsets.UTF_8);
+			assertEquals(0, BatchQueryRunner.runCommand("--input", input.getPath(), "--api-url", apiUrl));
+		} finally {
+			System.setOut(stdout);
+		}
+		assertFalse(closed[0], "System.out was closed");
+		assertEquals("ok", mapper.readTree(captured.toString(StandardCharsets.UTF_8)).get("status").asText());
+
+		System.out.println(" -> Success! Results: " + lines.size());
+	}
+}
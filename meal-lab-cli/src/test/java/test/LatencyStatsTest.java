@@ -0,0 +1,67 @@
+package test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import karanika.meallab.cli.LatencyStats;
+
+// Tests for LatencyStats: counts and nearest-rank percentiles from the histogram (within 1%)
+class LatencyStatsTest {
+
+//------------------------------------Test 1: Percentiles------------------------------------------------------
+
+	@Test
+	void testPercentiles() {
+		System.out.println("Test 1: Percentiles of 1..100 ms");
+
+		LatencyStats stats = new LatencyStats();
+		assertEquals(0, stats.percentileMillis(50));                // No queries yet
+
+		stats.start();
+		for (int ms = 100; ms >= 1; ms--) {                        // Recorded out of order
+			stats.record(TimeUnit.MILLISECONDS.toNanos(ms), ms != 42);
+		}
+		stats.recordRejected();
+		stats.stop();
+
+		assertEquals(50.0, stats.percentileMillis(50), 0.5);
+		assertEquals(90.0, stats.percentileMillis(90), 0.9);
+		assertEquals(99.0, stats.percentileMillis(99), 0.99);
+		assertEquals(100.0, stats.percentileMillis(100), 1e-9);          // The maximum is exact
+		assertEquals(1.0, stats.percentileMillis(0.5), 0.01);
+		assertThrows(IllegalArgumentException.class, () -> stats.percentileMillis(0));
+
+		assertEquals(100, stats.getCount());
+		assertEquals(1, stats.getFailedCount());
+		assertEquals(1, stats.getRejectedCount());
+		assertTrue(stats.getThroughput() > 0);
+
+		System.out.println(" -> Success!\n" + stats.summary());
+	}
+
+//------------------------------Test 2: Constant memory, wide range--------------------------------------------
+
+	@Test
+	void testManyValues() {
+		System.out.println("\nTest 2: A million latencies from 1 us to 10 s");
+
+		LatencyStats stats = new LatencyStats();
+		long[] values = { 1_000, 50_000, 2_000_000, 300_000_000, 10_000_000_000L };
+		for (int i = 0; i < 1_000_000; i++) {
+			stats.record(values[i % values.length], true);
+		}
+		stats.record(7, true);                                     // Small values are exact
+		stats.record(Long.MAX_VALUE, true);                        // The top of the range still fits
+
+		assertEquals(1_000_002, stats.getCount());
+		assertEquals(7e-6, stats.percentileMillis(5e-5), 1e-12);        // Rank 1
+		assertEquals(2.0, stats.percentileMillis(50), 0.02);
+		assertEquals(10_000.0, stats.percentileMillis(99.9), 100);
+		assertEquals(Long.MAX_VALUE / 1e6, stats.percentileMillis(100), 1);
+
+		System.out.println(" -> Success! p50 " + stats.percentileMillis(50) + " ms");
+	}
+}
@@ -0,0 +1,84 @@
+package karanika.meallab.ui;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+
+/**
+ * Runs the work behind UI actions in the background and brings the results back to the JavaFX thread.
+ * Every task belongs to an action (e.g. "search"): starting a new task for an action cancels the one
+ * still running for it, and only the newest task of an action ever reaches its callbacks.
+ * The tasks are the non-blocking calls of MealLabServices, so cancelling a task also cancels its HTTP call.
+ * busyProperty() is true while any task runs (for a progress indicator and a cancel button).
+ * All methods must be called on the JavaFX thread.
+ */
+
+final class BackgroundTasks {
+
+	private final Map<String, CompletableFuture<?>> running = new HashMap<>();     // action -> newest task
+	private final ReadOnlyBooleanWrapper busy = new ReadOnlyBooleanWrapper(false);
+
+//-------------------------------------------Tasks--------------------------------------------
+
+	// Starts the task for the action, cancelling the previous one. onSuccess / onError run on the JavaFX
+	// thread, unless a newer task of the same action or cancel() came first.
+	<T> CompletableFuture<T> submit(String action, Supplier<CompletableFuture<T>> task,
+			Consumer<? super T> onSuccess, Consumer<Throwable> onError) {
+		CompletableFuture<T> future = task.get();             // Invalid input throws here and keeps the old task
+		cancel(action);
+		running.put(action, future);
+		busy.set(true);
+
+		future.whenComplete((result, error) -> Platform.runLater(() -> {
+			if (running.get(action) != future) {
+				return;                                        // Cancelled or replaced meanwhile
+			}
+			finished(action);
+			if (error == null) {
+				onSuccess.accept(result);
+			} else if (!(unwrap(error) instanceof CancellationException)) {
+				onError.accept(unwrap(error));
+			}
+		}));
+		return future;
+	}
+
+	// Cancels the running task of the action (its callbacks are not called)
+	void cancel(String action) {
+		CompletableFuture<?> future = running.get(action);
+		if (future != null) {
+			finished(action);
+			future.cancel(true);
+		}
+	}
+
+	void cancelAll() {
+		for (String action : running.keySet().toArray(new String[0])) {
+			cancel(action);
+		}
+	}
+
+	ReadOnlyBooleanProperty busyProperty() {
+		return busy.getReadOnlyProperty();
+	}
+
+//---------------------------------------Private Methods----------------------------------------
+
+	private void finished(String action) {
+		running.remove(action);
+		busy.set(!running.isEmpty());
+	}
+
+	// CompletableFuture wraps the real error of dependent stages
+	static Throwable unwrap(Throwable error) {
+		return (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+	}
+}
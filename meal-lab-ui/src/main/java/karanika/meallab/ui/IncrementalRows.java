@@ -0,0 +1,163 @@
+package karanika.meallab.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import javafx.animation.AnimationTimer;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TableView;
+import karanika.meallab.model.MealLabInfo;
+import karanika.meallab.services.MealHydrator;
+
+/**
+ * Feeds a meal table incrementally instead of clearing and refilling it.
+ * - show(rows) / beginStream() + append(meal) set the rows the table should end up with.
+ * - Once per frame the table is brought closer to them, at most PAGE_SIZE new rows at a time, so
+ *   thousands of rows never cost one long pulse and the first page is on screen right away.
+ * - Updates are a keyed diff by meal ID against the whole new list, done once: the common start and end
+ *   stay in the table (with the selection), the old rows in between are removed in one change and the
+ *   new ones are inserted between them page by page. While rows stream in the end is not known yet,
+ *   so only the common start is kept then.
+ * Rows pass through resolve first (e.g. MealHydrator::getIfHydrated), so a row that was already
+ * completed is never replaced by its partial version again. JavaFX thread only.
+ */
+
+final class IncrementalRows {
+
+	static final int PAGE_SIZE = 200;
+
+	private final TableView<MealLabInfo> table;
+	private final UnaryOperator<MealLabInfo> resolve;
+
+	private List<MealLabInfo> target = new ArrayList<>();    // Rows the table should show
+	private boolean complete;                                 // false while rows are still appended
+	private int shown;                                        // target[0 .. shown) is at the start of the table
+	private int tail;                                         // The last tail rows of target are at its end
+	private boolean dirty;                                    // target was replaced since the last frame
+
+	private final AnimationTimer pager = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			nextPage();
+		}
+	};
+
+//----------------------------------------Constructor-----------------------------------------
+
+	IncrementalRows(TableView<MealLabInfo> table, UnaryOperator<MealLabInfo> resolve) {
+		this.table = table;
+		this.resolve = resolve;
+	}
+
+//--------------------------------------------Rows--------------------------------------------
+
+	// The first page is shown at once, the rest over the next frames
+	void show(List<MealLabInfo> rows) {
+		target = new ArrayList<>(rows);
+		complete = true;
+		restart();
+		nextPage();
+	}
+
+	// Rows will arrive one by one through append(); the old rows stay until the first frame after that
+	void beginStream() {
+		target = new ArrayList<>();
+		complete = false;
+		restart();
+	}
+
+	void append(MealLabInfo row) {
+		target.add(row);
+		pager.start();
+	}
+
+	void stop() {
+		pager.stop();
+	}
+
+//---------------------------------------Private Methods----------------------------------------
+
+	private void restart() {
+		shown = 0;
+		tail = 0;
+		dirty = true;
+		pager.start();
+	}
+
+	// Runs once per frame until the table shows all of target
+	private void nextPage() {
+		if (dirty) {
+			diff(table.getItems());
+			dirty = false;
+		}
+		int end = Math.min(target.size() - tail, shown + PAGE_SIZE);
+		if (shown < end) {
+			table.getItems().addAll(shown, resolved(shown, end));
+			shown = end;
+		}
+		if (shown == target.size() - tail) {
+			pager.stop();
+		}
+	}
+
+	private List<MealLabInfo> resolved(int from, int to) {
+		List<MealLabInfo> rows = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			rows.add(resolve.apply(target.get(i)));
+		}
+		return rows;
+	}
+
+	// Keeps the common start and end (same IDs) and removes the old rows in between;
+	// the new rows in between (target[shown .. size - tail)) are left to nextPage()
+	private void diff(ObservableList<MealLabInfo> items) {
+		MealLabInfo selected = table.getSelectionModel().getSelectedItem();
+
+		int start = 0;
+		int endOld = items.size();
+		int endNew = target.size();
+		while (start < endOld && start < endNew && sameId(items.get(start), target.get(start))) {
+			update(items, start, target.get(start));
+			start++;
+		}
+		while (complete && endOld > start && endNew > start && sameId(items.get(endOld - 1), target.get(endNew - 1))) {
+			update(items, --endOld, target.get(--endNew));
+		}
+		if (endOld > start) {
+			items.remove(start, endOld);
+		}
+		shown = start;
+		tail = target.size() - endNew;
+
+		// A kept row stays selected even if it moved
+		if (selected != null && table.getSelectionModel().getSelectedItem() != selected) {
+			int index = indexOfId(items, selected.getId());
+			if (index >= 0) {
+				table.getSelectionModel().select(index);
+			}
+		}
+	}
+
+	// A row is only set again when it really is a different object, and a full row never goes back to partial
+	private void update(ObservableList<MealLabInfo> items, int index, MealLabInfo row) {
+		MealLabInfo resolved = resolve.apply(row);
+		MealLabInfo current = items.get(index);
+		if (current != resolved && !(MealHydrator.isPartial(resolved) && !MealHydrator.isPartial(current))) {
+			items.set(index, resolved);
+		}
+	}
+
+	private static boolean sameId(MealLabInfo a, MealLabInfo b) {
+		return a.getId() != null && a.getId().equals(b.getId());
+	}
+
+	private static int indexOfId(List<MealLabInfo> items, String id) {
+		for (int i = 0; i < items.size(); i++) {
+			if (id.equals(items.get(i).getId())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
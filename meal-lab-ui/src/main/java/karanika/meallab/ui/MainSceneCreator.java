@@ -48,7 +48,7 @@ public class MainSceneCreator implements EventHandler<MouseEvent> {
 		// Check if the source of the click is the search button
 		if (event.getSource() == searchBtn) {
 			// Switch to the Search Scene
-			MealLabApp.primaryStage.setScene(MealLabApp.searchScene);
+			MealLabApp.primaryStage.setScene(MealLabApp.getSearchScene());
 			}
 	    }
 	}
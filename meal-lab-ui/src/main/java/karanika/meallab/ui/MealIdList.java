@@ -0,0 +1,164 @@
+package karanika.meallab.ui;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import karanika.meallab.model.MealLabInfo;
+
+/**
+ * A list of meals with unique IDs (favorites, cooked history) that tables can bind to.
+ * - contains and add (duplicate check) are hash lookups by meal ID, never a scan of the list.
+ * - addAll / removeAll / setAll fire a single change event however many meals they touch.
+ * - items() is a read-only ObservableList view, so every change goes through this class and the map
+ *   always matches the list. Bind tables to a SortedList of it, sorting then never changes the order here.
+ * The map also remembers each meal's position, so get / remove find their meal without a scan as long as
+ * no removal happened before it. A removal shifts the positions after it; they are not fixed one by one
+ * but recomputed lazily: the first get / remove at or behind the removed index walks the tail once (the
+ * same O(n) as the array shift of the removal itself), however many removals came before it. So
+ * alternating remove / lookup in the middle of the list is O(n) per pair, like a plain list.
+ * JavaFX thread only, like the list it wraps.
+ */
+
+final class MealIdList {
+
+	private final ObservableList<MealLabInfo> items = FXCollections.observableArrayList();
+	private final ObservableList<MealLabInfo> view = FXCollections.unmodifiableObservableList(items);
+	private final Map<String, Integer> positions = new HashMap<>();     // id -> index in items
+	private int validBelow;                                             // Indexes below this are up to date
+
+//-------------------------------------------Queries------------------------------------------
+
+	ObservableList<MealLabInfo> items() {
+		return view;
+	}
+
+	int size() {
+		return items.size();
+	}
+
+	boolean contains(String id) {
+		return id != null && positions.containsKey(id);
+	}
+
+	// The meal with the ID, or null
+	MealLabInfo get(String id) {
+		int index = indexOf(id);
+		return index < 0 ? null : items.get(index);
+	}
+
+//-------------------------------------------Changes------------------------------------------
+
+	// False when a meal with the same ID is already there (or the meal has no ID)
+	boolean add(MealLabInfo meal) {
+		if (meal == null || meal.getId() == null || positions.containsKey(meal.getId())) {
+			return false;
+		}
+		append(meal);
+		items.add(meal);
+		return true;
+	}
+
+	// Adds the meals whose ID is new (first one wins within the batch) in one change. Returns how many.
+	int addAll(Collection<MealLabInfo> meals) {
+		List<MealLabInfo> batch = new ArrayList<>(newMeals(meals).values());
+		for (MealLabInfo meal : batch) {
+			append(meal);
+		}
+		items.addAll(batch);
+		return batch.size();
+	}
+
+	boolean remove(String id) {
+		int index = indexOf(id);
+		if (index < 0) {
+			return false;
+		}
+		positions.remove(id);
+		validBelow = Math.min(validBelow, index);
+		items.remove(index);
+		return true;
+	}
+
+	// Removes the meals with these IDs in one change. Returns how many were there.
+	int removeAll(Collection<String> ids) {
+		Set<MealLabInfo> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+		int first = items.size();
+		for (String id : ids) {
+			int index = indexOf(id);
+			if (index >= 0 && removed.add(items.get(index))) {
+				first = Math.min(first, index);
+			}
+		}
+		if (removed.isEmpty()) {
+			return 0;
+		}
+		for (MealLabInfo meal : removed) {
+			positions.remove(meal.getId());
+		}
+		validBelow = Math.min(validBelow, first);
+		items.removeAll(removed);
+		return removed.size();
+	}
+
+	// Replaces the whole content in one change (duplicate IDs keep their first meal)
+	void setAll(Collection<MealLabInfo> meals) {
+		positions.clear();
+		validBelow = 0;
+		List<MealLabInfo> batch = new ArrayList<>(newMeals(meals).values());
+		for (MealLabInfo meal : batch) {
+			append(meal);
+		}
+		items.setAll(batch);
+	}
+
+//---------------------------------------Private Methods----------------------------------------
+
+	// Records the position the meal gets at the end of the list (called before it is added)
+	private void append(MealLabInfo meal) {
+		int index = positions.size();
+		positions.put(meal.getId(), index);
+		if (validBelow == index) {
+			validBelow++;
+		}
+	}
+
+	// The meals of the collection whose ID is not in the list yet, without duplicates, in order
+	private Map<String, MealLabInfo> newMeals(Collection<MealLabInfo> meals) {
+		Map<String, MealLabInfo> batch = new LinkedHashMap<>();
+		for (MealLabInfo meal : meals) {
+			if (meal != null && meal.getId() != null && !positions.containsKey(meal.getId())) {
+				batch.putIfAbsent(meal.getId(), meal);
+			}
+		}
+		return batch;
+	}
+
+	private int indexOf(String id) {
+		Integer index = id == null ? null : positions.get(id);
+		if (index == null) {
+			return -1;
+		}
+		if (index >= validBelow) {
+			reindex();
+			index = positions.get(id);
+		}
+		return index;
+	}
+
+	// Brings the positions behind the first removal up to date again
+	private void reindex() {
+		for (int i = validBelow; i < items.size(); i++) {
+			positions.put(items.get(i).getId(), i);
+		}
+		validBelow = items.size();
+	}
+}
@@ -1,12 +1,16 @@
 package karanika.meallab.ui;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.stage.Stage;
 import javafx.scene.Scene;
 
 /**
  * Main Application Entry Point.
  * Orchestrates the primary stage and scene transitions.
+ * Startup is staged so the window appears as early as possible: only the menu is built before the first
+ * frame, the search scene is built right after it (or on the first click, whichever comes first) and
+ * loads the saved lists and warms up the HTTP connection in the background.
  */
 
 public class MealLabApp extends Application {
@@ -15,6 +19,11 @@ public class MealLabApp extends Application {
 	public static Stage primaryStage;
 	public static Scene mainScene , searchScene;
 	
+	// Phases of the cold start (printed as they are reached)
+	static final StartupTimer startupTimer = new StartupTimer();
+	
+	private static MealSearchSceneCreator searchSceneCreator;
+	
 	@Override
 	public void start(Stage stage) {
 		
@@ -24,11 +33,18 @@ public class MealLabApp extends Application {
 		// 2. Initialize the Main Menu Scene (MainSceneCreator)
 		MainSceneCreator mainSceneCreator = new MainSceneCreator();
 		 mainScene = mainSceneCreator.createScene();
+		 startupTimer.mark(StartupTimer.MAIN_SCENE_BUILT);
 		
 		
-		// 3. Initialize the Search/Results Scene (MealSearchSceneCreator)
-		MealSearchSceneCreator searchSceneCreator = new MealSearchSceneCreator();
-		searchScene = searchSceneCreator.createScene();
+		// 3. The Search/Results Scene is built after the first frame is on screen
+		mainScene.addPostLayoutPulseListener(new Runnable() {
+			@Override
+			public void run() {
+				mainScene.removePostLayoutPulseListener(this);
+				startupTimer.mark(StartupTimer.FIRST_FRAME);
+				Platform.runLater(MealLabApp::getSearchScene);
+			}
+		});
 		
 		// 4. Configure Window Properties
 		primaryStage.setTitle("MealLab Application");
@@ -40,6 +56,24 @@ public class MealLabApp extends Application {
 		primaryStage.show();
 		}
 	
+	// The Search/Results Scene (MealSearchSceneCreator), built on first use. JavaFX thread only.
+	static Scene getSearchScene() {
+		if (searchScene == null) {
+			searchSceneCreator = new MealSearchSceneCreator(startupTimer);
+			searchScene = searchSceneCreator.createScene();
+			startupTimer.mark(StartupTimer.SEARCH_SCENE_BUILT);
+		}
+		return searchScene;
+	}
+	
+	@Override
+	public void stop() {
+		// Close the API client (connection pool and dispatcher threads)
+		if (searchSceneCreator != null) {
+			searchSceneCreator.close();
+		}
+	}
+	
 		public static void main(String[] args) {
 		// Launch the JavaFx runtime
 		launch(args);
@@ -4,13 +4,18 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
-import javafx.collections.FXCollections;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.SortedList;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -19,14 +24,15 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
 import javafx.scene.control.TabPane.TabClosingPolicy;
 import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableRow;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.image.Image; 
 import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseEvent;
@@ -36,9 +42,17 @@ import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.util.Duration;
 
+import karanika.meallab.cache.InMemoryMealCache;
 import karanika.meallab.model.MealLabInfo; 
+import karanika.meallab.model.TermNormalizer;
+import karanika.meallab.services.LiveSearch;
+import karanika.meallab.services.MealHydrator;
 import karanika.meallab.services.MealLabServices;
+import karanika.meallab.storage.MealJournal;
+import karanika.meallab.storage.MealLabInfoCodec;
+import karanika.meallab.storage.MealJournal.FsyncPolicy;
 import karanika.meallab.exception.MealLabException;
 
 /**
@@ -52,9 +66,10 @@ import karanika.meallab.exception.MealLabException;
 public class MealSearchSceneCreator implements EventHandler<MouseEvent> {
 	
 	//--- Data Lists ---
-	// ObservableLists update the TableViews automatically when modified
-	private ObservableList<MealLabInfo> favoritesList;
-	private ObservableList<MealLabInfo> cookedList;
+	// ObservableLists update the TableViews automatically when modified.
+	// MealIdList keeps them unique by meal ID, with membership checks by ID instead of a scan.
+	private MealIdList favoritesList;
+	private MealIdList cookedList;
 	
 	// --- UI Components ---
 	TabPane mainTabPane; 
@@ -68,6 +83,8 @@ public class MealSearchSceneCreator implements EventHandler<MouseEvent> {
 	// UI Controls: Buttons
 	Button searchByNameBtn, searchByIngredientBtn, searchByIdBtn, randomBtn, backBtn;
 	Button addToFavBtn, markCookedBtn;    // Action Buttons
+	Button cancelSearchBtn;               // Shown while a search runs
+	ProgressIndicator searchProgress;
 	
 	// UI Controls: Inputs & Labels
 	Label textLbl, instructionsLbl, ingredientsLbl;
@@ -77,6 +94,7 @@ public class MealSearchSceneCreator implements EventHandler<MouseEvent> {
 	
 	// UI Controls: Data Display
 	TableView<MealLabInfo> searchTableView;
+	IncrementalRows searchRows;               // Fills searchTableView page by page, with keyed updates
 	TextArea instructionsArea, ingredientsArea;
 	ImageView mealImageView;
 	
@@ -89,22 +107,85 @@ public class MealSearchSceneCreator implements EventHandler<MouseEvent> {
 	private static final String apiUrl = "https://www.themealdb.com/api/json/v1/";
 	private static final String apiKey = "1";
 	
-	// Files to store data
+	// One service for the whole session, so every request reuses the same warm connection pool.
+	// Its response cache answers repeated searches (e.g. after a backspace) without a request.
+	private final MealLabServices service = new MealLabServices.Builder(apiUrl, apiKey)
+			.cache(new InMemoryMealCache(2000, java.time.Duration.ofMinutes(10)))
+			.build();
+	
+	// API calls run in the background (the non-blocking service methods), never in an event handler.
+	// All four search buttons share one action, so a newer search cancels the one still running.
+	private final BackgroundTasks tasks = new BackgroundTasks();
+	private static final String SEARCH_ACTION = "search";
+	
+	// Search-as-you-type by name: a search starts once typing pauses for TYPING_PAUSE, replaces (and cancels)
+	// the one still running, and its rows appear as they are parsed. Refinements of the last result are
+	// filtered locally, so typing a word costs one request, not one per keystroke.
+	private static final Duration TYPING_PAUSE = Duration.millis(300);
+	private final LiveSearch liveSearch = new LiveSearch(service);
+	private final PauseTransition typingPause = new PauseTransition(TYPING_PAUSE);
+	private String liveQuery;                  // Normalized text of the last live search, null = none
+	private int liveGeneration;                // Rows of older live searches are dropped
+	
+	// Journal appends run in order on their own thread, so a slow disk never blocks the UI
+	private final ExecutorService journalWriter = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "journal-writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	// "Search Ingredient" rows only have ID, name and thumbnail: the full details are fetched for the
+	// selected row and, in the background, for the rows on screen and the next PREFETCH_ROWS below them
+	private final MealHydrator hydrator = new MealHydrator(service);
+	private static final int PREFETCH_ROWS = 10;
+	private int firstShownRow = Integer.MAX_VALUE, lastShownRow = -1;
+	private boolean prefetchScheduled;
+	
+	// Thumbnails are downloaded and decoded in the background, at the size of the ImageView (IMAGE_SIZE).
+	// The small /preview variant is shown first while the full image loads.
+	private static final int IMAGE_SIZE = 280;
+	private static final double ROW_HEIGHT = 24;
+	private final ThumbnailCache thumbnails = new ThumbnailCache(service.getHttpClient(),
+			new File(DATA_DIR, "thumbnails"), 64L * 1024 * 1024, 100L * 1024 * 1024);
+	private String shownThumbnail;             // URL of the meal in the details view
+	
+	// Files to store data: an append-only journal per list (favorites.snapshot + favorites.journal, ...).
+	// The old JSON files are only read once, to import them on the first start.
+		private static final File DATA_DIR = new File(".");
+		private static final String FAV_NAME = "favorites";
+		private static final String COOKED_NAME = "cooked";
 		private static final String FAV_FILE = "favorites.json";
 		private static final String COOKED_FILE = "cooked.json";
-		private ObjectMapper mapper = new ObjectMapper();
+		private MealJournal favoritesJournal;      // Opened and used on the journal-writer thread only
+		private MealJournal cookedJournal;
+		private static final int LOAD_CHUNK = 500; // Saved meals added to a list per JavaFX event while loading
+		private boolean restoring;                 // True while loaded meals are added (they are not journaled again)
+		
+		private final StartupTimer startupTimer;
 	
-	public MealSearchSceneCreator() {
+	public MealSearchSceneCreator(StartupTimer startupTimer) {
+		this.startupTimer = startupTimer;
+		
 		// 1. Initialize Data Lists
-		favoritesList = FXCollections.observableArrayList();
-		cookedList = FXCollections.observableArrayList();
+		favoritesList = new MealIdList();
+		cookedList = new MealIdList();
 		
-		// Load data from disk when app starts
+		// Load data from disk when app starts (in the background, the lists fill in while the scene is shown)
 				loadData();
 				
-				// Auto-save when lists change
-				favoritesList.addListener((ListChangeListener<MealLabInfo>) c -> saveData());
-				cookedList.addListener((ListChangeListener<MealLabInfo>) c -> saveData());
+				// Open the connection to the API while the user is still looking at the window
+				service.warmUp().thenAccept(warm -> {
+					if (warm) {
+						startupTimer.mark(StartupTimer.CONNECTION_WARM);
+					}
+				});
+				
+				// Auto-save when lists change (only the change is appended, not the whole list)
+				favoritesList.items().addListener((ListChangeListener<MealLabInfo>) c -> saveData(() -> favoritesJournal, c));
+				cookedList.items().addListener((ListChangeListener<MealLabInfo>) c -> saveData(() -> cookedJournal, c));
+				
+				// Full details arrive on an HTTP thread, the row is replaced on the JavaFX thread
+				hydrator.setOnHydrated(full -> Platform.runLater(() -> replaceRow(full)));
 		
 		
 		// 2. Initialize Main Container (TabPane)
@@ -132,6 +213,7 @@ public class MealSearchSceneCreator implements EventHandler<MouseEvent> {
 		searchByIngredientBtn.setOnMouseClicked(this);
 		searchByIdBtn.setOnMouseClicked(this);
 		randomBtn.setOnMouseClicked(this);
+		cancelSearchBtn.setOnMouseClicked(this);
 		backBtn.setOnMouseClicked(this);
 		
 		addToFavBtn.setOnMouseClicked(this);
@@ -153,16 +235,28 @@ public class MealSearchSceneCreator implements EventHandler<MouseEvent> {
 		textLbl = new Label("Search Parameter: ");
 		paramField = new TextField();
 		paramField.setPrefWidth(200);
+		paramField.textProperty().addListener((obs, oldText, newText) -> typingPause.playFromStart());
+		typingPause.setOnFinished(e -> startLiveSearch());
 
 		searchByNameBtn = new Button("Search Name");
 		searchByIngredientBtn = new Button("Search Ingredient");
 		searchByIdBtn = new Button("Search ID");
 		randomBtn = new Button("Random Meal");
+		
+		// Progress and Cancel are only shown (and take space) while a search runs
+		searchProgress = new ProgressIndicator();
+		searchProgress.setPrefSize(22, 22);
+		cancelSearchBtn = new Button("Cancel");
+		searchProgress.visibleProperty().bind(tasks.busyProperty());
+		searchProgress.managedProperty().bind(tasks.busyProperty());
+		cancelSearchBtn.visibleProperty().bind(tasks.busyProperty());
+		cancelSearchBtn.managedProperty().bind(tasks.busyProperty());
 
 		topControlsBox = new HBox(15); // 15px spacing
 		topControlsBox.setAlignment(Pos.CENTER_LEFT);
 		topControlsBox.setPadding(new Insets(10));
-		topControlsBox.getChildren().addAll(textLbl, paramField, searchByNameBtn, searchByIngredientBtn, searchByIdBtn, randomBtn);
+		topControlsBox.getChildren().addAll(textLbl, paramField, searchByNameBtn, searchByIngredientBtn, searchByIdBtn, randomBtn,
+				searchProgress, cancelSearchBtn);
 
 
 		// --- The Main Grid ---
@@ -183,17 +277,34 @@ public class MealSearchSceneCreator implements EventHandler<MouseEvent> {
 		// --- Left Side: Table ---
 		searchTableView = createMealTable();
 		searchTableView.setPrefHeight(350); // Fixed minimum height
+		searchRows = new IncrementalRows(searchTableView, hydrator::getIfHydrated);
 		
 		// Add Listener
 		searchTableView.getSelectionModel().selectedItemProperty().addListener((obs, oldSelection, newSelection) -> {
-			if (newSelection != null) updateDetails(newSelection);
+			if (newSelection != null) {
+				updateDetails(newSelection);
+				if (MealHydrator.isPartial(newSelection)) {
+					hydrator.hydrate(newSelection);           // replaceRow selects the full meal when it arrives
+				}
+			}
+		});
+		
+		// Rows are reused while scrolling: every row that shows a partial meal asks for a prefetch
+		searchTableView.setRowFactory(table -> new TableRow<MealLabInfo>() {
+			@Override
+			protected void updateItem(MealLabInfo meal, boolean empty) {
+				super.updateItem(meal, empty);
+				if (!empty && MealHydrator.isPartial(meal)) {
+					rowShown(getIndex());
+				}
+			}
 		});
 
 		// --- Right Side Container ---
 		// Grouping the Image and the Action Buttons vertically
 		mealImageView = new ImageView();
-		mealImageView.setFitWidth(280); 
-		mealImageView.setFitHeight(280);
+		mealImageView.setFitWidth(IMAGE_SIZE); 
+		mealImageView.setFitHeight(IMAGE_SIZE);
 		mealImageView.setPreserveRatio(true);
 
 		addToFavBtn = new Button("💚 Add to Favorites");
@@ -270,7 +381,7 @@ public class MealSearchSceneCreator implements EventHandler<MouseEvent> {
 		title.setStyle("-fx-font-size: 18px; -fx-font-weight: bold;");
 		
 		favTableView = createMealTable();
-		favTableView.setItems(favoritesList); // Bind to ObservableList
+		favTableView.setItems(sortedView(favTableView, favoritesList)); // Bind to ObservableList
 		
 		favTableView.setOnMouseClicked(e -> {
 			    if (e.getClickCount() == 2) {
@@ -278,8 +389,7 @@ public class MealSearchSceneCreator implements EventHandler<MouseEvent> {
 			    	if (selected != null) {
 			    		updateDetails(selected);
 			    		
-			    		searchTableView.getItems().clear();
-						searchTableView.getItems().add(selected);
+			    		searchRows.show(List.of(selected));
 						searchTableView.getSelectionModel().select(0);
 						
 			    		mainTabPane.getSelectionModel().select(0);
@@ -307,7 +417,7 @@ private BorderPane createCookedContent() {
 		title.setStyle("-fx-font-size: 18px; -fx-font-weight: bold;");
 		
 		cookedTableView = createMealTable();
-		cookedTableView.setItems(cookedList);      // Bind to ObservableList
+		cookedTableView.setItems(sortedView(cookedTableView, cookedList));      // Bind to ObservableList
 		
 		cookedTableView.setOnMouseClicked(e -> {
 			    if (e.getClickCount() == 2) {
@@ -315,8 +425,7 @@ private BorderPane createCookedContent() {
 			    	if (selected != null) {
 			    		updateDetails(selected);
 			    		
-			    		searchTableView.getItems().clear();
-						searchTableView.getItems().add(selected);
+			    		searchRows.show(List.of(selected));
 						searchTableView.getSelectionModel().select(0);
 						
 			    		mainTabPane.getSelectionModel().select(0);
@@ -338,28 +447,25 @@ private BorderPane createCookedContent() {
 		   
 	private TableView<MealLabInfo> createMealTable() {
 		    TableView<MealLabInfo> table = new TableView<>();
+		    table.setFixedCellSize(ROW_HEIGHT);     // Rows are never measured one by one while scrolling
 	     	
 		
 		// Column 1. ID
-		TableColumn<MealLabInfo, String> idColumn = new TableColumn<>("ID");
-		idColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
+		TableColumn<MealLabInfo, String> idColumn = textColumn("ID", MealLabInfo::getId);
 		idColumn.setPrefWidth(60);
 		idColumn.setResizable(false);
 				
 		// Column 2: Name
-		TableColumn<MealLabInfo, String> nameColumn = new TableColumn<>("Meal Name");
-		nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
+		TableColumn<MealLabInfo, String> nameColumn = textColumn("Meal Name", MealLabInfo::getName);
 		
 				
 		// Column 3: Category
-		TableColumn<MealLabInfo, String> categoryColumn = new TableColumn<>("Category");
-		categoryColumn.setCellValueFactory(new PropertyValueFactory<>("category"));
+		TableColumn<MealLabInfo, String> categoryColumn = textColumn("Category", MealLabInfo::getCategory);
 		categoryColumn.setPrefWidth(90);
 		categoryColumn.setResizable(false);
 				
 		// Column 4: Area 
-		TableColumn<MealLabInfo, String> areaColumn = new TableColumn<>("Area");
-		areaColumn.setCellValueFactory(new PropertyValueFactory<>("area"));
+		TableColumn<MealLabInfo, String> areaColumn = textColumn("Area", MealLabInfo::getArea);
 		areaColumn.setPrefWidth(90);
 		areaColumn.setResizable(false);
 		
@@ -376,6 +482,20 @@ private BorderPane createCookedContent() {
 		return table;
 	}
 	
+	// Clicking a column header sorts this view, never the list itself (its order is the saved order)
+	private static SortedList<MealLabInfo> sortedView(TableView<MealLabInfo> table, MealIdList list) {
+		SortedList<MealLabInfo> sorted = new SortedList<>(list.items());
+		sorted.comparatorProperty().bind(table.comparatorProperty());
+		return sorted;
+	}
+	
+	// The value is read straight from the meal (no reflection, no property lookup per cell)
+	private static TableColumn<MealLabInfo, String> textColumn(String title, Function<MealLabInfo, String> value) {
+		TableColumn<MealLabInfo, String> column = new TableColumn<>(title);
+		column.setCellValueFactory(cell -> new ReadOnlyStringWrapper(value.apply(cell.getValue())));
+		return column;
+	}
+	
 	
 //-----------------------------Helper Method: Updates the details fields and image when a meal is selected---------------------------
 	
@@ -386,101 +506,256 @@ private BorderPane createCookedContent() {
 			ingredientsArea.setText(meal.getFormattedIngredients());
 							
             String thumbUrl = meal.getThumbnail();
+            shownThumbnail = thumbUrl;
                 if (thumbUrl != null && ! thumbUrl.isEmpty()) {
-                	try {
-                		// Load image from URL
-                		mealImageView.setImage(new Image(thumbUrl));
-                	} catch (Exception e) {             
-                		// Fail silently if image cannot be loaded
-                		mealImageView.setImage(null);
+                	// Shown at once when cached, otherwise when it arrives. One download per image:
+                	// the cache picks the /preview variant itself when IMAGE_SIZE fits in it.
+                	Image cached = thumbnails.getIfCached(thumbUrl, IMAGE_SIZE);
+                	mealImageView.setImage(cached);
+                	if (cached == null) {
+                		thumbnails.load(thumbUrl, IMAGE_SIZE).thenAccept(image -> showThumbnail(thumbUrl, image));
                 	}
                 }else {
                 	  mealImageView.setImage(null);
                 }
 		}
+	    
+	    // Called on a loader thread. Shows the image if its meal is still the one in the details view
+	    // (a failed load just leaves the view as it is).
+	    private void showThumbnail(String url, Image image) {
+	    	Platform.runLater(() -> {
+	    		if (url.equals(shownThumbnail)) {
+	    			mealImageView.setImage(image);
+	    		}
+	    	});
+	    }
+	
+//-----------------------------Helper Methods: Hydration of partial rows---------------------------
+	    
+	    // Collects the rows shown in one layout pass and prefetches them (plus the next rows) once
+	    private void rowShown(int index) {
+	    	firstShownRow = Math.min(firstShownRow, index);
+	    	lastShownRow = Math.max(lastShownRow, index);
+	    	if (prefetchScheduled) {
+	    		return;
+	    	}
+	    	prefetchScheduled = true;
+	    	Platform.runLater(() -> {
+	    		hydrator.prefetch(searchTableView.getItems(), firstShownRow, lastShownRow - firstShownRow + 1 + PREFETCH_ROWS);
+	    		firstShownRow = Integer.MAX_VALUE;
+	    		lastShownRow = -1;
+	    		prefetchScheduled = false;
+	    	});
+	    }
+	    
+	    // Puts the full meal in place of its partial row; a selected row is selected again, which shows the details
+	    private void replaceRow(MealLabInfo full) {
+	    	ObservableList<MealLabInfo> items = searchTableView.getItems();
+	    	for (int i = 0; i < items.size(); i++) {
+	    		MealLabInfo row = items.get(i);
+	    		if (row != full && full.getId().equals(row.getId()) && MealHydrator.isPartial(row)) {
+	    			boolean selected = searchTableView.getSelectionModel().getSelectedIndex() == i;
+	    			items.set(i, full);
+	    			if (selected) {
+	    				searchTableView.getSelectionModel().select(i);
+	    			}
+	    			return;
+	    		}
+	    	}
+	    }
+	
+//-----------------------------Helper Methods: Search-as-you-type---------------------------
+	    
+	    // Runs when typing pauses. Text that is too short or looks like a meal ID only cancels the running
+	    // search (IDs are looked up with "Search ID"); the same text as last time sends nothing.
+	    private void startLiveSearch() {
+	    	String query = TermNormalizer.normalizeName(paramField.getText());
+	    	if (query.length() < LiveSearch.DEFAULT_MIN_LENGTH || query.chars().allMatch(Character::isDigit)) {
+	    		liveQuery = null;
+	    		tasks.cancel(SEARCH_ACTION);
+	    		return;
+	    	}
+	    	if (query.equals(liveQuery)) {
+	    		return;
+	    	}
+	    	liveQuery = query;
+	    	int generation = ++liveGeneration;
+	    	hydrator.cancelPrefetch();
+	    	searchRows.beginStream();
+	    	
+	    	tasks.submit(SEARCH_ACTION,
+	    			() -> liveSearch.search(query, meal -> Platform.runLater(() -> addLiveRow(generation, meal))),
+	    			results -> finishLiveSearch(generation, results),
+	    			error -> {
+	    				liveQuery = null;               // Typing the same text again retries
+	    				showError(error);
+	    			});
+	    }
+	    
+	    // Called for every meal while it streams in (local answers included)
+	    private void addLiveRow(int generation, MealLabInfo meal) {
+	    	if (generation == liveGeneration) {
+	    		searchRows.append(meal);
+	    	}
+	    }
+	    
+	    // The complete result replaces the streamed rows (usually nothing is left to change);
+	    // a single result is selected as with the search buttons
+	    private void finishLiveSearch(int generation, List<MealLabInfo> results) {
+	    	if (generation != liveGeneration) {
+	    		return;
+	    	}
+	    	searchRows.show(results);
+	    	if (results.size() == 1) {
+	    		searchTableView.getSelectionModel().select(0);
+	    	}
+	    }
 	
 	    Scene createScene() {
 	    	     return new Scene(mainTabPane, 1000, 750);
 	    }
+	    
+	    // Releases the HTTP connection pool and flushes the journals when the application exits
+	    void close() {
+	    	typingPause.stop();
+	    	searchRows.stop();
+	    	tasks.cancelAll();
+	    	thumbnails.close();
+	    	service.close();
+	    	try {
+	    		// Pending journal appends are written before the journals are closed
+	    		journalWriter.shutdown();
+	    		journalWriter.awaitTermination(5, TimeUnit.SECONDS);
+	    		if (favoritesJournal != null) favoritesJournal.close();
+	    		if (cookedJournal != null) cookedJournal.close();
+	    	} catch (IOException e) {
+	    		e.printStackTrace();
+	    	} catch (InterruptedException e) {
+	    		Thread.currentThread().interrupt();
+	    	}
+	    }
 		
 		
 // ----------------------------------------- [JSON FEATURE] Save & Load Methods ---------------------
 		
-		private void saveData() {
-			try {
-				// Save Favorites
-				mapper.writeValue(new File(FAV_FILE), new ArrayList<>(favoritesList));
-				// Save Cooked
-				mapper.writeValue(new File(COOKED_FILE), new ArrayList<>(cookedList));
-				// (Using ArrayList because ObservableList isn't directly serializable)
-			} catch (IOException e) {
-				e.printStackTrace(); // In real app, maybe log this
+		// Appends every added / removed meal of a list change to the list's journal (on the journal-writer thread;
+		// the change itself is only valid here, so it is copied first). The journal is looked up on that thread,
+		// after loadData opened it.
+		private void saveData(Supplier<MealJournal> journalOf, ListChangeListener.Change<? extends MealLabInfo> change) {
+			if (restoring) {
+				return;               // Meals that were just loaded from the journal
 			}
+			List<String> removedIds = new ArrayList<>();
+			List<MealLabInfo> added = new ArrayList<>();
+			while (change.next()) {
+				for (MealLabInfo removed : change.getRemoved()) {
+					removedIds.add(removed.getId());
+				}
+				added.addAll(change.getAddedSubList());
+			}
+			journalWriter.execute(() -> {
+				MealJournal journal = journalOf.get();
+				if (journal == null) {
+					return;           // Loading failed, nothing can be saved
+				}
+				try {
+					for (String id : removedIds) {
+						journal.remove(id);
+					}
+					for (MealLabInfo meal : added) {
+						journal.add(meal);
+					}
+				} catch (IOException e) {
+					e.printStackTrace(); // In real app, maybe log this
+				}
+			});
 		}
 		
+		// Opens the journals on the journal-writer thread (so every later append waits for them) and streams the
+		// saved meals into the lists, LOAD_CHUNK at a time, so the window stays responsive with long lists
 		private void loadData() {
-			try {
-				// Load Favorites
-				File fFile = new File(FAV_FILE);
-				if (fFile.exists()) {
-					List<MealLabInfo> loadedFavs = mapper.readValue(fFile, new TypeReference<List<MealLabInfo>>(){});
-					favoritesList.addAll(loadedFavs);
-				}
-				
-				// Load Cooked
-				File cFile = new File(COOKED_FILE);
-				if (cFile.exists()) {
-					List<MealLabInfo> loadedCooked = mapper.readValue(cFile, new TypeReference<List<MealLabInfo>>(){});
-					cookedList.addAll(loadedCooked);
+			journalWriter.execute(() -> {
+				List<MealLabInfo> favorites = List.of();
+				List<MealLabInfo> cooked = List.of();
+				try {
+					favoritesJournal = openJournal(FAV_NAME, FAV_FILE);
+					favorites = favoritesJournal.getMeals();
+					
+					cookedJournal = openJournal(COOKED_NAME, COOKED_FILE);
+					cooked = cookedJournal.getMeals();
+				} catch (IOException e) {
+					e.printStackTrace(); // If a file is corrupt, start with empty lists
 				}
-			} catch (IOException e) {
-				e.printStackTrace(); // First run will likely fail or if file is corrupt, just ignore
+				List<MealLabInfo> savedFavorites = favorites, savedCooked = cooked;
+				Platform.runLater(() -> streamIn(favoritesList, savedFavorites, 0,
+						() -> streamIn(cookedList, savedCooked, 0,
+								() -> startupTimer.mark(StartupTimer.LISTS_LOADED))));
+			});
+		}
+		
+		// Adds meals[from .. from + LOAD_CHUNK) and queues the next chunk as a new JavaFX event, then runs done.
+		// Meals the user added meanwhile are not added twice (the list is keyed by ID).
+		private void streamIn(MealIdList list, List<MealLabInfo> meals, int from, Runnable done) {
+			int to = Math.min(meals.size(), from + LOAD_CHUNK);
+			restoring = true;
+			try {
+				list.addAll(meals.subList(from, to));
+			} finally {
+				restoring = false;
+			}
+			if (to < meals.size()) {
+				Platform.runLater(() -> streamIn(list, meals, to, done));
+			} else {
+				done.run();
+			}
+		}
+		
+		// Opens (replays) a journal. On the first start the old JSON file is imported into it.
+		private MealJournal openJournal(String name, String legacyFile) throws IOException {
+			boolean firstStart = !MealJournal.exists(DATA_DIR, name);
+			MealJournal journal = MealJournal.open(DATA_DIR, name, FsyncPolicy.PERIODIC);
+			
+			File legacy = new File(legacyFile);
+			if (firstStart && legacy.exists()) {
+				journal.replaceAll(MealLabInfoCodec.readLegacyJson(legacy));
 			}
+			return journal;
 		}
 	
 	@Override
 	public void handle(MouseEvent event) {
-		MealLabServices service = new MealLabServices(apiUrl, apiKey);
-		
-		
 		try {
 			
 		    // --- SEARCH & RANDOM ACTIONS
 			if (event.getSource() == searchByNameBtn || event.getSource() == searchByIngredientBtn ||
 					event.getSource() == searchByIdBtn || event.getSource() == randomBtn) {
 				
-				List<MealLabInfo> results = new ArrayList<>();
-				
 				// Clear UI elements
 				instructionsArea.clear();
 				ingredientsArea.clear();
 				mealImageView.setImage(null);
 				
 				
-			// Execute API call based on button source
+			// Start the API call based on button source; the results arrive in showResults
+			// (a live search still running is replaced, its late rows are dropped)
+			String text = paramField.getText();
+			typingPause.stop();
+			liveQuery = null;
+			liveGeneration++;
 			if (event.getSource() == searchByNameBtn) {
-				results = service.searchMealsByName(paramField.getText());
+				tasks.submit(SEARCH_ACTION, () -> service.searchMealsByNameAsync(text), this::showResults, this::showError);
 			}else if (event.getSource() == searchByIngredientBtn) {
-				 results = service.searchMealsByIngredient(paramField.getText());
+				tasks.submit(SEARCH_ACTION, () -> service.searchMealsByIngredientAsync(text), this::showResults, this::showError);
 			}else if (event.getSource() == searchByIdBtn) {
-				 MealLabInfo m = service.getMealDetailsById(paramField.getText());
-				 if (m != null) results.add(m) ;
+				tasks.submit(SEARCH_ACTION, () -> service.getMealDetailsByIdAsync(text),
+						m -> showResults(m == null ? List.of() : List.of(m)), this::showError);
 			}else if (event.getSource() == randomBtn) {
-				 MealLabInfo m = service.getRandomMeal();
-				 if (m != null) results.add(m);
-			}
-			
-			
-			// Update Table
-			searchTableView.getItems().clear();
-			if (results != null && !results.isEmpty()) {
-				searchTableView.getItems().addAll(results);
-				// Auto-select if only one result
-				if (results.size() == 1) searchTableView.getSelectionModel().select(0);
-			}else {
-				showAlert(AlertType.INFORMATION, "No Results", "No meals found.");
+				tasks.submit(SEARCH_ACTION, service::getRandomMealAsync, m -> showResults(List.of(m)), this::showError);
 			}
 	  }	
+			else if (event.getSource() == cancelSearchBtn) {
+				tasks.cancel(SEARCH_ACTION);
+			}
 			
 	 // --- NAVIGATION ---
 			else if (event.getSource() == backBtn) {
@@ -490,17 +765,14 @@ private BorderPane createCookedContent() {
 			// --- FAVORITES LOGIC ---
 			
 			else if (event.getSource() == addToFavBtn) {
-				MealLabInfo selected = searchTableView.getSelectionModel().getSelectedItem();
+				MealLabInfo selected = hydrator.getIfHydrated(searchTableView.getSelectionModel().getSelectedItem());
 				if (selected == null) {
 					showAlert(AlertType.WARNING, "Selection Eroor", "Please select a meal first");
 					return;
 				}
 				
-			// Check for duplicated based on Meal ID
-				boolean exists = favoritesList.stream().anyMatch(m -> m.getId().equals(selected.getId()));
-				
-				if (!exists) {
-					  favoritesList.add(selected);
+			// Check for duplicated based on Meal ID (add() refuses an ID that is already there)
+				if (favoritesList.add(selected)) {
 					  showAlert(AlertType.INFORMATION, "Success", "Added to Favorites");
 				}else {
 					  showAlert(AlertType.WARNING, "Duplicates", "This meal is already in Favorites.");
@@ -509,7 +781,7 @@ private BorderPane createCookedContent() {
 			else if (event.getSource() == removeFromFavBtn) {
 				MealLabInfo selected = favTableView.getSelectionModel().getSelectedItem();
 				if (selected != null) {
-					favoritesList.remove(selected);
+					favoritesList.remove(selected.getId());
 				}else {
 					  showAlert(AlertType.WARNING, "Selection Error", "Select a meal to remove.");
 				}
@@ -518,15 +790,12 @@ private BorderPane createCookedContent() {
 			
 			// --- COOKED HISTORY LOGIC ---
 			else if (event.getSource() == markCookedBtn) {
-				MealLabInfo selected = searchTableView.getSelectionModel().getSelectedItem();
+				MealLabInfo selected = hydrator.getIfHydrated(searchTableView.getSelectionModel().getSelectedItem());
 				if (selected == null) {
 					showAlert(AlertType.WARNING, "Selection Error", "Please select a meal first.");
 					return;
 				}
-				boolean exists = cookedList.stream().anyMatch(m -> m.getId().equals(selected.getId()));
-				
-				if (!exists) {
-					cookedList.add(selected);
+				if (cookedList.add(selected)) {
 					showAlert(AlertType.INFORMATION, "Success", "Marked as Cooked!");
 				} else {
 					showAlert(AlertType.WARNING, "Duplicate", "This meal is already in Cooked History.");
@@ -535,7 +804,7 @@ private BorderPane createCookedContent() {
 			else if (event.getSource() == removeFromCookedBtn) {
 				MealLabInfo selected = cookedTableView.getSelectionModel().getSelectedItem();
 				if (selected != null) {
-					cookedList.remove(selected);
+					cookedList.remove(selected.getId());
 				} else {
 					showAlert(AlertType.WARNING, "Selection Error", "Select a meal to remove.");
 				}
@@ -545,9 +814,6 @@ private BorderPane createCookedContent() {
 		} catch (IllegalArgumentException e) {
 			// Catch Validation Errors
 			showAlert(AlertType.WARNING, "Input Error", e.getMessage());
-		} catch (MealLabException e) {
-			// Catch API Errors
-			showAlert(AlertType.ERROR, "API Error", e.getMessage());
 		} catch (Exception e) {
 			// Catch Unexpected System Errors
 			e.printStackTrace();
@@ -556,6 +822,34 @@ private BorderPane createCookedContent() {
 	
 	}
 
+// ---------------------------------Helper Methods: results of a background search----------------------------------
+	
+	// Runs on the JavaFX thread when the newest search finishes
+	private void showResults(List<MealLabInfo> results) {
+		// Update Table (rows whose full details are already known are shown complete right away;
+		// rows that were already there stay, large results arrive page by page)
+		hydrator.cancelPrefetch();
+		searchRows.show(results == null ? List.of() : results);
+		if (results != null && !results.isEmpty()) {
+			// Auto-select if only one result
+			if (results.size() == 1) searchTableView.getSelectionModel().select(0);
+		}else {
+			showAlert(AlertType.INFORMATION, "No Results", "No meals found.");
+		}
+	}
+	
+	// Same messages as the catch blocks of handle(), for errors of a background search
+	private void showError(Throwable error) {
+		if (error instanceof MealLabException) {
+			showAlert(AlertType.ERROR, "API Error", error.getMessage());
+		} else if (error instanceof IllegalArgumentException) {
+			showAlert(AlertType.WARNING, "Input Error", error.getMessage());
+		} else {
+			error.printStackTrace();
+			showAlert(AlertType.ERROR, "System Error", error.getMessage());
+		}
+	}
+
 // ---------------------------------Helper Method to display Alerts efficiently----------------------------------
 	 private void showAlert(AlertType type, String title, String content) {
 		 Alert a = new Alert(type);
@@ -0,0 +1,41 @@
+package karanika.meallab.ui;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Times the phases of a cold start, measured from the start of the JVM, and prints each one once:
+ *   [startup] main scene built: 310 ms
+ *   [startup] first frame: 402 ms
+ *   [startup] interactive: 655 ms
+ * "first frame" is the first pulse of the main scene, "interactive" is when the search scene is built
+ * and the saved lists are loaded. Phases can be marked from any thread.
+ */
+
+final class StartupTimer {
+
+	static final String MAIN_SCENE_BUILT = "main scene built";
+	static final String FIRST_FRAME = "first frame";
+	static final String SEARCH_SCENE_BUILT = "search scene built";
+	static final String CONNECTION_WARM = "connection warm";
+	static final String LISTS_LOADED = "saved lists loaded";
+	static final String INTERACTIVE = "interactive";
+
+	private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+	private final Map<String, Long> phases = new LinkedHashMap<>();     // phase -> ms since JVM start
+
+	// Records the phase the first time it is reached (later calls are ignored)
+	synchronized void mark(String phase) {
+		if (phases.containsKey(phase)) {
+			return;
+		}
+		long elapsed = System.currentTimeMillis() - jvmStartMillis;
+		phases.put(phase, elapsed);
+		System.out.println("[startup] " + phase + ": " + elapsed + " ms");
+
+		if (!phases.containsKey(INTERACTIVE) && phases.containsKey(SEARCH_SCENE_BUILT) && phases.containsKey(LISTS_LOADED)) {
+			mark(INTERACTIVE);
+		}
+	}
+}
@@ -0,0 +1,247 @@
+package karanika.meallab.ui;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javafx.scene.image.Image;
+import karanika.meallab.exception.MealLabException;
+import karanika.meallab.storage.StorageFiles;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Meal thumbnails for the details view, loaded and decoded off the JavaFX thread.
+ * - Images are decoded straight to the size they are shown at (a 700px JPEG shown at 280px
+ *   costs 280x280 pixels in memory, not 700x700).
+ * - TheMealDB serves a small variant at {thumbnail}/preview; it is used whenever the wanted size
+ *   is not above PREVIEW_SIZE, so only a fraction of the bytes are downloaded. Each load fetches
+ *   exactly one variant, callers ask for the size they show and nothing else.
+ * - Decoded images stay in an LRU bounded by their decoded size (width x height x 4 bytes).
+ * - Downloaded files are kept on disk (bounded too, oldest first out), so a restart does not
+ *   download them again. Trimming runs as its own loader task under its own lock, so it never
+ *   holds up getIfCached on the JavaFX thread.
+ * The same image requested twice while it is loading is loaded once.
+ */
+
+final class ThumbnailCache implements AutoCloseable {
+
+	static final int PREVIEW_SIZE = 250;                      // Edge length of TheMealDB's /preview variant
+
+	private final OkHttpClient client;
+	private final Path directory;
+	private final long maxMemoryBytes;
+	private final long maxDiskBytes;
+	private final ExecutorService loader;
+
+	private final LinkedHashMap<String, Image> memory = new LinkedHashMap<>(64, 0.75f, true);   // LRU order
+	private final Map<String, CompletableFuture<Image>> loading = new HashMap<>();
+	private long memoryBytes;
+	private final AtomicLong diskBytes = new AtomicLong();
+	private final AtomicBoolean trimScheduled = new AtomicBoolean();
+	private final Object diskLock = new Object();                 // Trimming only, never the memory monitor
+
+//----------------------------------------Constructor-----------------------------------------
+
+	// The client is shared with MealLabServices, so thumbnails reuse its connection pool
+	ThumbnailCache(OkHttpClient client, File directory, long maxMemoryBytes, long maxDiskBytes) {
+		this.client = client;
+		this.directory = directory.toPath().toAbsolutePath();
+		this.maxMemoryBytes = maxMemoryBytes;
+		this.maxDiskBytes = maxDiskBytes;
+		this.loader = Executors.newFixedThreadPool(2, runnable -> {
+			Thread thread = new Thread(runnable, "thumbnail-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		// The directory is sized on a loader thread, a large cache does not slow down the start
+		loader.execute(() -> {
+			try {
+				Files.createDirectories(this.directory);
+				File[] files = this.directory.toFile().listFiles();
+				if (files != null) {
+					for (File file : files) {
+						diskBytes.addAndGet(file.length());
+					}
+				}
+			} catch (IOException e) {
+				e.printStackTrace();                          // Works without the disk cache, files just fail to save
+			}
+		});
+	}
+
+//-------------------------------------------Loading------------------------------------------
+
+	// The decoded image if it is in memory, else null (never blocks, for the JavaFX thread)
+	synchronized Image getIfCached(String url, int size) {
+		return memory.get(key(url, size));
+	}
+
+	// Loads, downscales and caches the image in the background. The future completes on a loader thread.
+	synchronized CompletableFuture<Image> load(String url, int size) {
+		String key = key(url, size);
+		Image cached = memory.get(key);
+		if (cached != null) {
+			return CompletableFuture.completedFuture(cached);
+		}
+		CompletableFuture<Image> running = loading.get(key);
+		if (running != null) {
+			return running;
+		}
+		CompletableFuture<Image> future = CompletableFuture.supplyAsync(() -> decode(variantUrl(url, size), size), loader);
+		loading.put(key, future);
+		future.whenComplete((image, error) -> finish(key, image));
+		return future;
+	}
+
+	@Override
+	public void close() {
+		loader.shutdownNow();
+	}
+
+//---------------------------------------Private Methods----------------------------------------
+
+	private static String key(String url, int size) {
+		return size + "@" + url;
+	}
+
+	private static String variantUrl(String url, int size) {
+		return size <= PREVIEW_SIZE ? url + "/preview" : url;
+	}
+
+	private synchronized void finish(String key, Image image) {
+		loading.remove(key);
+		if (image == null) {
+			return;
+		}
+		memory.put(key, image);
+		memoryBytes += decodedBytes(image);
+
+		// Evict the least recently shown images until the decoded size fits again (the newest always stays)
+		Iterator<Map.Entry<String, Image>> eldest = memory.entrySet().iterator();
+		while (memoryBytes > maxMemoryBytes && memory.size() > 1) {
+			Map.Entry<String, Image> entry = eldest.next();
+			memoryBytes -= decodedBytes(entry.getValue());
+			eldest.remove();
+		}
+	}
+
+	private static long decodedBytes(Image image) {
+		return (long) image.getWidth() * (long) image.getHeight() * 4;
+	}
+
+	// Runs on a loader thread: disk cache or download, then a decode straight to the wanted size
+	private Image decode(String url, int size) {
+		try {
+			byte[] bytes = readFromDisk(url);
+			if (bytes == null) {
+				bytes = download(url);
+				writeToDisk(url, bytes);
+			}
+			Image image = new Image(new ByteArrayInputStream(bytes), size, size, true, true);
+			if (image.isError()) {
+				throw new MealLabException("Cannot decode image " + url, 0);
+			}
+			return image;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private byte[] download(String url) throws IOException {
+		Request request = new Request.Builder().url(url).build();
+		try (Response response = client.newCall(request).execute()) {
+			if (!response.isSuccessful() || response.body() == null) {
+				throw new MealLabException("Image request failed: " + url, response.code());
+			}
+			return response.body().bytes();
+		}
+	}
+
+	private byte[] readFromDisk(String url) {
+		File file = fileFor(url);
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			byte[] bytes = Files.readAllBytes(file.toPath());
+			file.setLastModified(System.currentTimeMillis());     // Recently used files are trimmed last
+			return bytes;
+		} catch (IOException e) {
+			return null;                                          // Download it again
+		}
+	}
+
+	// Temporary file + rename, so a crash never leaves half an image behind
+	private void writeToDisk(String url, byte[] bytes) {
+		File file = fileFor(url);
+		try {
+			Path temp = Files.createTempFile(directory, file.getName(), ".tmp");
+			try {
+				Files.write(temp, bytes);
+				StorageFiles.moveAtomically(temp, file.toPath());
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+			if (diskBytes.addAndGet(bytes.length) > maxDiskBytes && trimScheduled.compareAndSet(false, true)) {
+				loader.execute(this::trimDisk);
+			}
+		} catch (IOException e) {
+			// Not cached on disk this time, the image itself is fine
+		}
+	}
+
+	// Deletes the least recently used files until the directory is back under 3/4 of its limit
+	private void trimDisk() {
+		synchronized (diskLock) {
+			trimScheduled.set(false);
+			File[] files = directory.toFile().listFiles();
+			if (files == null) {
+				return;
+			}
+			Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+			long total = 0;
+			for (File file : files) {
+				total += file.length();
+			}
+			for (int i = 0; i < files.length && total > maxDiskBytes * 3 / 4; i++) {
+				long length = files[i].length();
+				if (files[i].delete()) {
+					total -= length;
+				}
+			}
+			diskBytes.set(total);
+		}
+	}
+
+	// One file per variant URL, named by its SHA-1
+	private File fileFor(String url) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes(StandardCharsets.UTF_8));
+			StringBuilder name = new StringBuilder(digest.length * 2 + 4);
+			for (byte b : digest) {
+				name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return directory.resolve(name.append(".img").toString()).toFile();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-1 is always available", e);
+		}
+	}
+}